@@ -0,0 +1,194 @@
+package top.jessi.jhelper.enigma
+
+import android.os.CancellationSignal
+import android.os.OperationCanceledException
+import top.jessi.jhelper.file.Zip
+import java.io.InputStream
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import javax.crypto.Cipher
+import javax.crypto.spec.IvParameterSpec
+import javax.crypto.spec.SecretKeySpec
+
+/**
+ * Created by Jessi on 2026/10/19 21:30
+ * Email：17324719944@189.cn
+ * Describe：预置密钥的 AES/CBC/PKCS5Padding 加解密上下文
+ *
+ * 密钥与 IV 只校验、构建一次；每个线程各持有一个已初始化的加密、解密 Cipher，
+ * doFinal 之后 Cipher 会回到初始化后的状态，因此后续调用无需再次 getInstance 和 init（密钥扩展）。
+ * 适合使用同一密钥高频加解密大量小数据的场景，实例可在多线程间共享。
+ *
+ * 使用示例：
+ * ```
+ * val aes = AesContext("0123456789abcdef", "fedcba9876543210")
+ * val encrypted = aes.encrypt(data)
+ * val output = ByteArray(aes.getOutputSize(data.size))
+ * val length = aes.encrypt(data, 0, data.size, output, 0)
+ * ```
+ */
+class AesContext(key: ByteArray, iv: ByteArray) {
+
+    companion object {
+        private const val TRANSFORMATION = "AES/CBC/PKCS5Padding"
+        private const val BLOCK_SIZE = 16
+        private const val STREAM_BUFFER_SIZE = 64 * 1024
+    }
+
+    private val keySpec: SecretKeySpec
+    private val ivSpec: IvParameterSpec
+
+    init {
+        require(key.size == 16 || key.size == 24 || key.size == 32) { "The key length must be 16/24/32 bytes." }
+        require(iv.size == BLOCK_SIZE) { "The iv length must be 16 bytes." }
+        keySpec = SecretKeySpec(key, "AES")
+        ivSpec = IvParameterSpec(iv)
+    }
+
+    /**
+     * @param key 密钥，UTF-8 编码后须为 16/24/32 字节
+     * @param iv  偏移量，UTF-8 编码后须为 16 字节
+     */
+    constructor(key: String, iv: String) :
+            this(key.toByteArray(StandardCharsets.UTF_8), iv.toByteArray(StandardCharsets.UTF_8))
+
+    private val encryptCipher = object : ThreadLocal<Cipher>() {
+        override fun initialValue(): Cipher = newCipher(Cipher.ENCRYPT_MODE)
+    }
+
+    private val decryptCipher = object : ThreadLocal<Cipher>() {
+        override fun initialValue(): Cipher = newCipher(Cipher.DECRYPT_MODE)
+    }
+
+    /**
+     * 加密后的长度（PKCS5 填充至少补一个分组）
+     */
+    fun getOutputSize(inputLength: Int): Int = (inputLength / BLOCK_SIZE + 1) * BLOCK_SIZE
+
+    /**
+     * 加密
+     */
+    fun encrypt(plaintext: ByteArray): ByteArray = withCipher(encryptCipher) { it.doFinal(plaintext) }
+
+    /**
+     * 加密到调用方提供的缓冲区，output 剩余空间至少为 [getOutputSize]
+     *
+     * @return 写入 output 的字节数
+     */
+    fun encrypt(input: ByteArray, inputOffset: Int, inputLength: Int, output: ByteArray, outputOffset: Int): Int {
+        return withCipher(encryptCipher) { it.doFinal(input, inputOffset, inputLength, output, outputOffset) }
+    }
+
+    /**
+     * 加密 input 的剩余字节写入 output，两者的 position 都会前移
+     *
+     * @return 写入 output 的字节数
+     */
+    fun encrypt(input: ByteBuffer, output: ByteBuffer): Int = withCipher(encryptCipher) { it.doFinal(input, output) }
+
+    /**
+     * 解密
+     */
+    fun decrypt(ciphertext: ByteArray): ByteArray = withCipher(decryptCipher) { it.doFinal(ciphertext) }
+
+    /**
+     * 解密到调用方提供的缓冲区，output 剩余空间至少为 inputLength
+     *
+     * @return 写入 output 的字节数
+     */
+    fun decrypt(input: ByteArray, inputOffset: Int, inputLength: Int, output: ByteArray, outputOffset: Int): Int {
+        return withCipher(decryptCipher) { it.doFinal(input, inputOffset, inputLength, output, outputOffset) }
+    }
+
+    /**
+     * 解密 input 的剩余字节写入 output，两者的 position 都会前移
+     *
+     * @return 写入 output 的字节数
+     */
+    fun decrypt(input: ByteBuffer, output: ByteBuffer): Int = withCipher(decryptCipher) { it.doFinal(input, output) }
+
+    /**
+     * 流式加密，使用固定大小的缓冲区，内存占用与数据大小无关；不会关闭输入输出流
+     *
+     * @param totalBytes 输入总长度，仅用于进度回调，未知时传 -1
+     * @param signal 取消信号，可为 null，取消时抛出 [OperationCanceledException]
+     * @param listener 进度回调（在当前线程上回调），可为 null
+     * @return 写入的字节数
+     */
+    @JvmOverloads
+    fun encrypt(
+        input: InputStream, output: OutputStream, totalBytes: Long = -1,
+        signal: CancellationSignal? = null, listener: Zip.ProgressListener? = null
+    ): Long = withCipher(encryptCipher) { transform(it, input, output, totalBytes, signal, listener) }
+
+    /**
+     * 流式解密，使用固定大小的缓冲区，内存占用与数据大小无关；不会关闭输入输出流
+     *
+     * @param totalBytes 输入总长度，仅用于进度回调，未知时传 -1
+     * @param signal 取消信号，可为 null，取消时抛出 [OperationCanceledException]
+     * @param listener 进度回调（在当前线程上回调），可为 null
+     * @return 写入的字节数
+     */
+    @JvmOverloads
+    fun decrypt(
+        input: InputStream, output: OutputStream, totalBytes: Long = -1,
+        signal: CancellationSignal? = null, listener: Zip.ProgressListener? = null
+    ): Long = withCipher(decryptCipher) { transform(it, input, output, totalBytes, signal, listener) }
+
+    /**
+     * 加密字符串（UTF-8），结果为 16 进制大写字符串，与 [Enigma.encryptAes] 一致
+     */
+    fun encryptToHex(plaintext: String): String {
+        return Hex.encode(encrypt(plaintext.toByteArray(StandardCharsets.UTF_8)), upper = true)
+    }
+
+    /**
+     * 解密 16 进制字符串，结果按 UTF-8 解码
+     */
+    fun decryptFromHex(ciphertext: String): String {
+        return String(decrypt(Enigma.hexToByte(ciphertext)), StandardCharsets.UTF_8)
+    }
+
+    private fun transform(
+        cipher: Cipher, input: InputStream, output: OutputStream, totalBytes: Long,
+        signal: CancellationSignal?, listener: Zip.ProgressListener?
+    ): Long {
+        val inBuffer = ByteArray(STREAM_BUFFER_SIZE)
+        // update 最多多输出一个分组，doFinal 最多输出两个分组
+        val outBuffer = ByteArray(STREAM_BUFFER_SIZE + BLOCK_SIZE * 2)
+        var processed = 0L
+        var written = 0L
+        var count: Int
+        while (input.read(inBuffer).also { count = it } != -1) {
+            if (signal?.isCanceled == true) throw OperationCanceledException()
+            val length = cipher.update(inBuffer, 0, count, outBuffer, 0)
+            output.write(outBuffer, 0, length)
+            written += length
+            processed += count
+            listener?.onProgress(processed, totalBytes)
+        }
+        val length = cipher.doFinal(outBuffer, 0)
+        output.write(outBuffer, 0, length)
+        output.flush()
+        return written + length
+    }
+
+    private fun newCipher(mode: Int): Cipher {
+        val cipher = Cipher.getInstance(TRANSFORMATION)
+        cipher.init(mode, keySpec, ivSpec)
+        return cipher
+    }
+
+    /**
+     * 执行失败（如密文损坏）后 Cipher 状态不确定，丢弃当前线程的实例
+     */
+    private inline fun <T> withCipher(pool: ThreadLocal<Cipher>, block: (Cipher) -> T): T {
+        try {
+            return block(pool.get()!!)
+        } catch (e: Exception) {
+            pool.remove()
+            throw e
+        }
+    }
+}
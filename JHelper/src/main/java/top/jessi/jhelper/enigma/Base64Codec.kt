@@ -0,0 +1,283 @@
+package top.jessi.jhelper.enigma
+
+import java.nio.BufferOverflowException
+import java.nio.ByteBuffer
+
+/**
+ * Created by Jessi on 2026/10/19 23:55
+ * Email：17324719944@189.cn
+ * Describe：查表实现的 Base64 编解码（标准字母表、带填充、不换行，与 android.util.Base64.NO_WRAP 一致）
+ *
+ * 除返回 String 的方法外，均直接写入调用方提供的数组 / ByteBuffer，不产生中间对象。
+ * 解码规则与 android.util.Base64.decode 相同：忽略字母表以外的字符（如换行），可省略末尾填充，
+ * '=' 出现在错误位置时抛出 IllegalArgumentException。
+ */
+internal object Base64Codec {
+
+    private val ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray()
+
+    private const val SKIP = -1
+    private const val EQUALS = -2
+
+    // 字符 → 6 位数值，'=' 为 EQUALS，其余为 SKIP
+    private val DECODE = IntArray(256) { SKIP }.also { table ->
+        for (i in ALPHABET.indices) table[ALPHABET[i].code] = i
+        table['='.code] = EQUALS
+    }
+
+    /**
+     * 编码后的字符数
+     */
+    fun encodedLength(length: Int): Int = (length + 2) / 3 * 4
+
+    /**
+     * 解码结果的最大字节数，用于为 decode 准备目标数组
+     */
+    fun maxDecodedLength(length: Int): Int = (length.toLong() * 3 / 4).toInt()
+
+    /**
+     * 字节编码为 Base64 字符串
+     */
+    fun encode(bytes: ByteArray, offset: Int = 0, length: Int = bytes.size): String {
+        val chars = CharArray(encodedLength(length))
+        encode(bytes, offset, length, chars, 0)
+        return String(chars)
+    }
+
+    /**
+     * 编码到调用方提供的字符数组
+     *
+     * @return 写入的字符数
+     */
+    fun encode(bytes: ByteArray, offset: Int, length: Int, dest: CharArray, destOffset: Int): Int {
+        var p = destOffset
+        encodeGroups(bytes, offset, length) { dest[p++] = it }
+        return p - destOffset
+    }
+
+    /**
+     * 编码为 ASCII 字节写入调用方提供的字节数组
+     *
+     * @return 写入的字节数
+     */
+    fun encode(bytes: ByteArray, offset: Int, length: Int, dest: ByteArray, destOffset: Int): Int {
+        var p = destOffset
+        encodeGroups(bytes, offset, length) { dest[p++] = it.code.toByte() }
+        return p - destOffset
+    }
+
+    /**
+     * 编码 src 的剩余字节，以 ASCII 写入 dest，两者的 position 都会前移
+     *
+     * @return 写入 dest 的字节数
+     */
+    fun encode(src: ByteBuffer, dest: ByteBuffer): Int {
+        val count = encodedLength(src.remaining())
+        if (dest.remaining() < count) throw BufferOverflowException()
+        if (src.hasArray() && dest.hasArray()) {
+            encode(src.array(), src.arrayOffset() + src.position(), src.remaining(),
+                dest.array(), dest.arrayOffset() + dest.position())
+            src.position(src.limit())
+            dest.position(dest.position() + count)
+            return count
+        }
+        val base = src.position()
+        encodeGroups(src.remaining(), { src.get(base + it) }) { dest.put(it.code.toByte()) }
+        src.position(src.limit())
+        return count
+    }
+
+    /**
+     * 解码 [start, end) 区间到调用方提供的字节数组，dest 至少需要 [maxDecodedLength] 个字节的空间
+     *
+     * @return 写入的字节数
+     * @throws IllegalArgumentException 不是合法的 Base64
+     */
+    fun decode(text: CharSequence, start: Int, end: Int, dest: ByteArray, destOffset: Int): Int {
+        val decoder = Decoder()
+        var p = destOffset
+        p += decoder.update(text, start, end, dest, p)
+        p += decoder.finish(dest, p)
+        return p - destOffset
+    }
+
+    /**
+     * 解码 ASCII 字节到调用方提供的字节数组
+     *
+     * @return 写入的字节数
+     * @throws IllegalArgumentException 不是合法的 Base64
+     */
+    fun decode(bytes: ByteArray, offset: Int, length: Int, dest: ByteArray, destOffset: Int): Int {
+        val decoder = Decoder()
+        var p = destOffset
+        p += decoder.update(bytes, offset, length, dest, p)
+        p += decoder.finish(dest, p)
+        return p - destOffset
+    }
+
+    /**
+     * 解码 src 的剩余 ASCII 字节写入 dest，两者的 position 都会前移
+     *
+     * @return 写入 dest 的字节数
+     * @throws IllegalArgumentException 不是合法的 Base64
+     */
+    fun decode(src: ByteBuffer, dest: ByteBuffer): Int {
+        val decoder = Decoder()
+        val start = dest.position()
+        decoder.update(src, dest)
+        decoder.finish(dest)
+        return dest.position() - start
+    }
+
+    /**
+     * 按 3 字节一组编码，length 个字节由 byteAt 读取，字符交给 emit 输出
+     */
+    private inline fun encodeGroups(length: Int, byteAt: (Int) -> Byte, emit: (Char) -> Unit) {
+        var i = 0
+        while (length - i >= 3) {
+            val v = ((byteAt(i).toInt() and 0xFF) shl 16) or
+                    ((byteAt(i + 1).toInt() and 0xFF) shl 8) or
+                    (byteAt(i + 2).toInt() and 0xFF)
+            emit(ALPHABET[v ushr 18])
+            emit(ALPHABET[(v ushr 12) and 0x3F])
+            emit(ALPHABET[(v ushr 6) and 0x3F])
+            emit(ALPHABET[v and 0x3F])
+            i += 3
+        }
+        when (length - i) {
+            1 -> {
+                val v = (byteAt(i).toInt() and 0xFF) shl 16
+                emit(ALPHABET[v ushr 18])
+                emit(ALPHABET[(v ushr 12) and 0x3F])
+                emit('=')
+                emit('=')
+            }
+            2 -> {
+                val v = ((byteAt(i).toInt() and 0xFF) shl 16) or ((byteAt(i + 1).toInt() and 0xFF) shl 8)
+                emit(ALPHABET[v ushr 18])
+                emit(ALPHABET[(v ushr 12) and 0x3F])
+                emit(ALPHABET[(v ushr 6) and 0x3F])
+                emit('=')
+            }
+        }
+    }
+
+    private inline fun encodeGroups(bytes: ByteArray, offset: Int, length: Int, emit: (Char) -> Unit) {
+        encodeGroups(length, { bytes[offset + it] }, emit)
+    }
+
+    /**
+     * 增量解码器，输入可分多次送入，用于流式解码
+     */
+    class Decoder {
+
+        // 0~3：已读取的当前分组字符数；4：已读到一个 '='；5：填充结束；6：出错
+        private var state = 0
+        private var value = 0
+
+        fun update(text: CharSequence, start: Int, end: Int, dest: ByteArray, destOffset: Int): Int {
+            var p = destOffset
+            process(start, end, { text[it].code.let { c -> if (c < 256) DECODE[c] else SKIP } }) { dest[p++] = it }
+            return p - destOffset
+        }
+
+        fun update(bytes: ByteArray, offset: Int, length: Int, dest: ByteArray, destOffset: Int): Int {
+            var p = destOffset
+            process(offset, offset + length, { DECODE[bytes[it].toInt() and 0xFF] }) { dest[p++] = it }
+            return p - destOffset
+        }
+
+        /**
+         * 解码 src 的剩余字节写入 dest，两者的 position 都会前移
+         */
+        fun update(src: ByteBuffer, dest: ByteBuffer) {
+            process(src.position(), src.limit(), { DECODE[src.get(it).toInt() and 0xFF] }) { dest.put(it) }
+            src.position(src.limit())
+        }
+
+        /**
+         * 结束输入，输出末尾省略填充时剩余的字节（最多 2 个）
+         *
+         * @return 写入的字节数
+         */
+        fun finish(dest: ByteArray, destOffset: Int): Int {
+            var p = destOffset
+            finish { dest[p++] = it }
+            return p - destOffset
+        }
+
+        fun finish(dest: ByteBuffer) {
+            finish { dest.put(it) }
+        }
+
+        private inline fun process(start: Int, end: Int, codeAt: (Int) -> Int, emit: (Byte) -> Unit) {
+            var s = state
+            var v = value
+            for (i in start until end) {
+                val d = codeAt(i)
+                when (s) {
+                    0 -> if (d >= 0) {
+                        v = d
+                        s = 1
+                    } else if (d != SKIP) {
+                        fail()
+                    }
+                    1 -> if (d >= 0) {
+                        v = (v shl 6) or d
+                        s = 2
+                    } else if (d != SKIP) {
+                        fail()
+                    }
+                    2 -> if (d >= 0) {
+                        v = (v shl 6) or d
+                        s = 3
+                    } else if (d == EQUALS) {
+                        emit((v ushr 4).toByte())
+                        s = 4
+                    } else if (d != SKIP) {
+                        fail()
+                    }
+                    3 -> if (d >= 0) {
+                        v = (v shl 6) or d
+                        emit((v ushr 16).toByte())
+                        emit((v ushr 8).toByte())
+                        emit(v.toByte())
+                        s = 0
+                    } else if (d == EQUALS) {
+                        emit((v ushr 10).toByte())
+                        emit((v ushr 2).toByte())
+                        s = 5
+                    } else if (d != SKIP) {
+                        fail()
+                    }
+                    4 -> if (d == EQUALS) {
+                        s = 5
+                    } else if (d != SKIP) {
+                        fail()
+                    }
+                    else -> if (d != SKIP) fail()
+                }
+            }
+            state = s
+            value = v
+        }
+
+        private inline fun finish(emit: (Byte) -> Unit) {
+            when (state) {
+                1, 4, 6 -> fail()
+                2 -> emit((value ushr 4).toByte())
+                3 -> {
+                    emit((value ushr 10).toByte())
+                    emit((value ushr 2).toByte())
+                }
+            }
+            state = 0
+            value = 0
+        }
+
+        private fun fail(): Nothing {
+            state = 6
+            throw IllegalArgumentException("bad base-64")
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package top.jessi.jhelper.enigma
+
+import java.io.FilterInputStream
+import java.io.IOException
+import java.io.InputStream
+
+/**
+ * Created by Jessi on 2026/10/19 14:20
+ * Email：17324719944@189.cn
+ * Describe：边读边解码的 Base64 输入流
+ *
+ * 从底层输入流读取 Base64 文本（ASCII），读出解码后的原始字节，解码规则与 [Enigma.decodeBase64Byte] 一致，
+ * 数据不合法时抛出 IOException。
+ */
+internal class Base64DecoderStream(input: InputStream) : FilterInputStream(input) {
+
+    private val decoder = Base64Codec.Decoder()
+    private val raw = ByteArray(BUFFER_SIZE)
+    // 每 4 个字符最多解出 3 个字节，容量足够容纳一次读取的解码结果
+    private val decoded = ByteArray(BUFFER_SIZE)
+    private var position = 0
+    private var limit = 0
+    private var eof = false
+
+    override fun read(): Int {
+        if (!fill()) return -1
+        return decoded[position++].toInt() and 0xFF
+    }
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int {
+        if (len == 0) return 0
+        if (!fill()) return -1
+        val count = minOf(len, limit - position)
+        System.arraycopy(decoded, position, b, off, count)
+        position += count
+        return count
+    }
+
+    override fun skip(n: Long): Long {
+        var remaining = n
+        while (remaining > 0 && fill()) {
+            val count = minOf(remaining, (limit - position).toLong()).toInt()
+            position += count
+            remaining -= count
+        }
+        return n - remaining
+    }
+
+    override fun available(): Int = limit - position
+
+    override fun markSupported(): Boolean = false
+
+    override fun mark(readlimit: Int) {
+    }
+
+    override fun reset() {
+        throw IOException("mark/reset not supported")
+    }
+
+    /**
+     * 当前缓冲区读完时继续从底层读取并解码
+     *
+     * @return 是否还有数据
+     */
+    private fun fill(): Boolean {
+        while (position >= limit) {
+            if (eof) return false
+            val count = `in`.read(raw)
+            position = 0
+            try {
+                limit = if (count < 0) {
+                    eof = true
+                    decoder.finish(decoded, 0)
+                } else {
+                    decoder.update(raw, 0, count, decoded, 0)
+                }
+            } catch (e: IllegalArgumentException) {
+                limit = 0
+                throw IOException("bad base-64", e)
+            }
+        }
+        return true
+    }
+
+    companion object {
+        private const val BUFFER_SIZE = 16 * 1024
+    }
+}
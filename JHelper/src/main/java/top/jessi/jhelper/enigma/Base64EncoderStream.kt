@@ -0,0 +1,91 @@
+package top.jessi.jhelper.enigma
+
+import java.io.FilterOutputStream
+import java.io.IOException
+import java.io.OutputStream
+
+/**
+ * Created by Jessi on 2026/10/19 14:20
+ * Email：17324719944@189.cn
+ * Describe：边写边编码的 Base64 输出流
+ *
+ * 写入的原始字节按 3 字节一组编码为 ASCII 后写入底层输出流，输出与 [Enigma.encodeBase64Byte] 一致（不换行）。
+ * 不足一组的字节在 [close] 时补齐填充，因此必须调用 close 才能得到完整结果；close 会同时关闭底层输出流。
+ */
+internal class Base64EncoderStream(out: OutputStream) : FilterOutputStream(out) {
+
+    private val pending = ByteArray(3)
+    private var pendingSize = 0
+    private val encoded = ByteArray(BUFFER_SIZE)
+    private var encodedSize = 0
+    private var closed = false
+
+    override fun write(b: Int) {
+        ensureOpen()
+        pending[pendingSize++] = b.toByte()
+        if (pendingSize == 3) emitPending()
+    }
+
+    override fun write(b: ByteArray, off: Int, len: Int) {
+        ensureOpen()
+        var p = off
+        val end = off + len
+        // 先补齐上次剩下的不完整分组
+        while (pendingSize > 0 && p < end) {
+            pending[pendingSize++] = b[p++]
+            if (pendingSize == 3) emitPending()
+        }
+        while (end - p >= 3) {
+            val groups = minOf((end - p) / 3, (encoded.size - encodedSize) / 4)
+            if (groups == 0) {
+                flushEncoded()
+                continue
+            }
+            encodedSize += Base64Codec.encode(b, p, groups * 3, encoded, encodedSize)
+            p += groups * 3
+        }
+        while (p < end) pending[pendingSize++] = b[p++]
+    }
+
+    /**
+     * 写出已编码的完整分组，不完整的分组保留到后续写入或 close
+     */
+    override fun flush() {
+        ensureOpen()
+        flushEncoded()
+        out.flush()
+    }
+
+    override fun close() {
+        if (closed) return
+        closed = true
+        try {
+            if (pendingSize > 0) emitPending()
+            flushEncoded()
+        } finally {
+            out.close()
+        }
+    }
+
+    private fun emitPending() {
+        if (encoded.size - encodedSize < 4) flushEncoded()
+        encodedSize += Base64Codec.encode(pending, 0, pendingSize, encoded, encodedSize)
+        pendingSize = 0
+    }
+
+    private fun flushEncoded() {
+        if (encodedSize > 0) {
+            out.write(encoded, 0, encodedSize)
+            encodedSize = 0
+        }
+    }
+
+    private fun ensureOpen() {
+        if (closed) throw IOException("Stream closed")
+    }
+
+    companion object {
+        // 4 的整数倍
+        private const val BUFFER_SIZE = 16 * 1024
+    }
+}
@@ -0,0 +1,219 @@
+package top.jessi.jhelper.enigma
+
+import android.os.Build
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withContext
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.zip.Adler32
+import java.util.zip.CRC32C
+import java.util.zip.Checksum
+
+/**
+ * Created by Jessi on 2026/10/19 14:17
+ * Email：17324719944@189.cn
+ * Describe：CRC32C / Adler32 校验和
+ *
+ * 文件校验通过 mmap 读取，较大的文件按分块在多个线程上并行计算，再按 zlib 的 combine 算法合并，
+ * 结果与顺序计算完全一致。协程中请使用 await 开头的挂起版本，阻塞版本供 Java 调用，
+ * 不要在主线程或 [Dispatchers.Default] 上调用。
+ */
+internal object Checksums {
+
+    // 小于该大小的文件不值得拆分
+    private const val PARALLEL_THRESHOLD = 4L * 1024 * 1024
+    private const val MIN_CHUNK_SIZE = 2L * 1024 * 1024
+    // 单次映射的最大长度
+    private const val MAP_SIZE = 64L * 1024 * 1024
+    private const val COPY_BUFFER_SIZE = 16 * 1024
+    private const val ADLER_BASE = 65521L
+
+    /**
+     * 创建 CRC32C 实例，Android 14+ 使用系统实现，以下使用 slice-by-8 实现
+     */
+    fun newCrc32c(): Checksum {
+        return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) CRC32C() else Crc32C()
+    }
+
+    fun crc32c(data: ByteArray, offset: Int, length: Int): Long {
+        val checksum = newCrc32c()
+        checksum.update(data, offset, length)
+        return checksum.value
+    }
+
+    /**
+     * 计算 ByteBuffer 剩余字节的 CRC32C，不改变其 position
+     */
+    fun crc32c(data: ByteBuffer): Long {
+        val checksum = newCrc32c()
+        update(checksum, data.duplicate())
+        return checksum.value
+    }
+
+    fun adler32(data: ByteArray, offset: Int, length: Int): Long {
+        val checksum = Adler32()
+        checksum.update(data, offset, length)
+        return checksum.value
+    }
+
+    /**
+     * 计算 ByteBuffer 剩余字节的 Adler32，不改变其 position
+     */
+    fun adler32(data: ByteBuffer): Long {
+        val checksum = Adler32()
+        update(checksum, data.duplicate())
+        return checksum.value
+    }
+
+    fun fileCrc32c(file: File): Long = runBlocking { awaitFileCrc32c(file) }
+
+    fun fileAdler32(file: File): Long = runBlocking { awaitFileAdler32(file) }
+
+    suspend fun awaitFileCrc32c(file: File): Long = file(file, ::newCrc32c, ::combineCrc32c)
+
+    suspend fun awaitFileAdler32(file: File): Long = file(file, ::Adler32, ::combineAdler32)
+
+    /**
+     * 合并两段数据的 CRC32C
+     *
+     * @param crc1    前一段的 CRC32C
+     * @param crc2    后一段的 CRC32C
+     * @param length2 后一段的长度
+     * @return 两段拼接后的 CRC32C
+     */
+    fun combineCrc32c(crc1: Long, crc2: Long, length2: Long): Long {
+        if (length2 <= 0) return crc1
+        // 对 crc1 追加 length2 个零字节：以 GF(2) 上的矩阵平方求"追加 2^n 个零比特"的算子
+        val even = IntArray(32)
+        val odd = IntArray(32)
+        odd[0] = Crc32C.POLY
+        var row = 1
+        for (n in 1 until 32) {
+            odd[n] = row
+            row = row shl 1
+        }
+        square(even, odd)
+        square(odd, even)
+        var crc = crc1.toInt()
+        var length = length2
+        while (true) {
+            square(even, odd)
+            if (length and 1L != 0L) crc = times(even, crc)
+            length = length shr 1
+            if (length == 0L) break
+            square(odd, even)
+            if (length and 1L != 0L) crc = times(odd, crc)
+            length = length shr 1
+            if (length == 0L) break
+        }
+        return (crc.toLong() xor crc2) and 0xFFFFFFFFL
+    }
+
+    /**
+     * 合并两段数据的 Adler32
+     *
+     * @param adler1  前一段的 Adler32
+     * @param adler2  后一段的 Adler32
+     * @param length2 后一段的长度
+     * @return 两段拼接后的 Adler32
+     */
+    fun combineAdler32(adler1: Long, adler2: Long, length2: Long): Long {
+        if (length2 < 0) return adler1
+        val rem = length2 % ADLER_BASE
+        var sum1 = adler1 and 0xFFFF
+        var sum2 = (rem * sum1) % ADLER_BASE
+        sum1 += (adler2 and 0xFFFF) + ADLER_BASE - 1
+        sum2 += ((adler1 ushr 16) and 0xFFFF) + ((adler2 ushr 16) and 0xFFFF) + ADLER_BASE - rem
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE
+        if (sum2 >= ADLER_BASE shl 1) sum2 -= ADLER_BASE shl 1
+        if (sum2 >= ADLER_BASE) sum2 -= ADLER_BASE
+        return sum1 or (sum2 shl 16)
+    }
+
+    /* ========================= 内部实现 ========================= */
+
+    private suspend fun file(
+        file: File, create: () -> Checksum, combine: (Long, Long, Long) -> Long
+    ): Long = withContext(Dispatchers.Default) {
+        RandomAccessFile(file, "r").use { raf ->
+            val channel = raf.channel
+            val size = channel.size()
+            val cores = Runtime.getRuntime().availableProcessors()
+            if (size < PARALLEL_THRESHOLD || cores < 2) return@withContext region(channel, 0, size, create())
+
+            val chunkSize = maxOf(MIN_CHUNK_SIZE, (size + cores - 1) / cores)
+            val chunks = ((size + chunkSize - 1) / chunkSize).toInt()
+            // FileChannel.map 可在多个线程上并发调用，各块互不影响
+            val values = (0 until chunks).map { chunk ->
+                async {
+                    val position = chunk * chunkSize
+                    region(channel, position, minOf(chunkSize, size - position), create())
+                }
+            }.awaitAll()
+            var result = values[0]
+            for (chunk in 1 until chunks) {
+                val position = chunk * chunkSize
+                result = combine(result, values[chunk], minOf(chunkSize, size - position))
+            }
+            result
+        }
+    }
+
+    /**
+     * 按 [MAP_SIZE] 分段映射并计算文件区间的校验和
+     */
+    private fun region(channel: FileChannel, position: Long, length: Long, checksum: Checksum): Long {
+        var offset = 0L
+        while (offset < length) {
+            val count = minOf(MAP_SIZE, length - offset)
+            update(checksum, channel.map(FileChannel.MapMode.READ_ONLY, position + offset, count))
+            offset += count
+        }
+        return checksum.value
+    }
+
+    /**
+     * 送入 ByteBuffer 的剩余字节，会移动其 position
+     */
+    private fun update(checksum: Checksum, buffer: ByteBuffer) {
+        when {
+            checksum is Crc32C -> checksum.update(buffer)
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE && checksum is CRC32C -> checksum.update(buffer)
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && checksum is Adler32 -> checksum.update(buffer)
+            buffer.hasArray() -> {
+                checksum.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining())
+                buffer.position(buffer.limit())
+            }
+            else -> {
+                val chunk = ByteArray(minOf(COPY_BUFFER_SIZE, buffer.remaining()))
+                while (buffer.hasRemaining()) {
+                    val count = minOf(chunk.size, buffer.remaining())
+                    buffer.get(chunk, 0, count)
+                    checksum.update(chunk, 0, count)
+                }
+            }
+        }
+    }
+
+    private fun times(matrix: IntArray, vector: Int): Int {
+        var sum = 0
+        var vec = vector
+        var i = 0
+        while (vec != 0) {
+            if (vec and 1 != 0) sum = sum xor matrix[i]
+            vec = vec ushr 1
+            i++
+        }
+        return sum
+    }
+
+    private fun square(square: IntArray, matrix: IntArray) {
+        for (n in 0 until 32) square[n] = times(matrix, matrix[n])
+    }
+}
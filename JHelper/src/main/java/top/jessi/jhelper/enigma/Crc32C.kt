@@ -0,0 +1,105 @@
+package top.jessi.jhelper.enigma
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.zip.Checksum
+
+/**
+ * Created by Jessi on 2026/10/19 14:17
+ * Email：17324719944@189.cn
+ * Describe：CRC32C（Castagnoli）的 slice-by-8 实现
+ *
+ * Android 14（API 34）以下没有 java.util.zip.CRC32C，以 8 张查找表每次处理 8 个字节，
+ * 结果与 CRC32C 一致；Android 14+ 应优先使用系统实现（可走 CPU 指令加速），见 [Checksums.newCrc32c]。
+ */
+internal class Crc32C : Checksum {
+
+    private var crc = 0
+
+    override fun update(b: Int) {
+        crc = crc.inv()
+        crc = TABLE[(crc xor b) and 0xFF] xor (crc ushr 8)
+        crc = crc.inv()
+    }
+
+    override fun update(b: ByteArray, off: Int, len: Int) {
+        var c = crc.inv()
+        var p = off
+        val end = off + len
+        while (end - p >= 8) {
+            val one = LittleEndian.getInt(b, p) xor c
+            val two = LittleEndian.getInt(b, p + 4)
+            c = slice(one, two)
+            p += 8
+        }
+        while (p < end) {
+            c = TABLE[(c xor b[p].toInt()) and 0xFF] xor (c ushr 8)
+            p++
+        }
+        crc = c.inv()
+    }
+
+    /**
+     * 送入 ByteBuffer 的剩余字节，处理完后 position 移到 limit（与系统 Checksum 行为一致）
+     */
+    fun update(buffer: ByteBuffer) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining())
+            buffer.position(buffer.limit())
+            return
+        }
+        // 直接内存（如 mmap）按小端绝对位置读取，不复制
+        val source = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+        var c = crc.inv()
+        var p = source.position()
+        val end = source.limit()
+        while (end - p >= 8) {
+            c = slice(source.getInt(p) xor c, source.getInt(p + 4))
+            p += 8
+        }
+        while (p < end) {
+            c = TABLE[(c xor source.get(p).toInt()) and 0xFF] xor (c ushr 8)
+            p++
+        }
+        crc = c.inv()
+        buffer.position(buffer.limit())
+    }
+
+    override fun getValue(): Long = crc.toLong() and 0xFFFFFFFFL
+
+    override fun reset() {
+        crc = 0
+    }
+
+    private fun slice(one: Int, two: Int): Int {
+        return TABLE[7 * 256 + (one and 0xFF)] xor
+                TABLE[6 * 256 + ((one ushr 8) and 0xFF)] xor
+                TABLE[5 * 256 + ((one ushr 16) and 0xFF)] xor
+                TABLE[4 * 256 + (one ushr 24)] xor
+                TABLE[3 * 256 + (two and 0xFF)] xor
+                TABLE[2 * 256 + ((two ushr 8) and 0xFF)] xor
+                TABLE[256 + ((two ushr 16) and 0xFF)] xor
+                TABLE[two ushr 24]
+    }
+
+    companion object {
+
+        /** 反射多项式 */
+        const val POLY = 0x82F63B78.toInt()
+
+        // 8 张表连续存放，第 k 张表位于 [k * 256, (k + 1) * 256)
+        private val TABLE = IntArray(8 * 256).also { table ->
+            for (n in 0 until 256) {
+                var c = n
+                repeat(8) { c = if (c and 1 != 0) (c ushr 1) xor POLY else c ushr 1 }
+                table[n] = c
+            }
+            for (k in 1 until 8) {
+                for (n in 0 until 256) {
+                    val prev = table[(k - 1) * 256 + n]
+                    table[k * 256 + n] = (prev ushr 8) xor table[prev and 0xFF]
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package top.jessi.jhelper.enigma
+
+import java.nio.ByteBuffer
+import java.security.MessageDigest
+
+/**
+ * Created by Jessi on 2026/10/19 21:05
+ * Email：17324719944@189.cn
+ * Describe：按线程复用的摘要计算
+ *
+ * 每个线程按算法缓存一个 [MessageDigest]，避免每次调用 getInstance 查找 Provider；
+ * 字符串直接按 UTF-8 分段编码到线程内复用的缓冲区中，结果与 String.toByteArray() 一致。
+ */
+internal object DigestPool {
+
+    // 每段编码的字符数，UTF-8 下一个 char 最多 3 个字节（代理对 2 个 char 共 4 个字节）
+    private const val CHUNK_CHARS = 4096
+
+    private class Scratch {
+        val digests = HashMap<String, MessageDigest>()
+        val encoded = ByteArray(CHUNK_CHARS * 3)
+        val output = ByteArray(64)
+    }
+
+    private val scratch = object : ThreadLocal<Scratch>() {
+        override fun initialValue() = Scratch()
+    }
+
+    /**
+     * 获取当前线程的摘要实例（已重置）
+     */
+    fun get(algorithm: String): MessageDigest {
+        val digests = scratch.get()!!.digests
+        val md = digests.getOrPut(algorithm) { MessageDigest.getInstance(algorithm) }
+        md.reset()
+        return md
+    }
+
+    /**
+     * 计算字符串 UTF-8 编码后的摘要，返回 16 进制小写字符串
+     */
+    fun hex(algorithm: String, text: CharSequence): String {
+        val md = get(algorithm)
+        update(md, text)
+        return finish(md)
+    }
+
+    /**
+     * 计算字节数组的摘要，返回 16 进制小写字符串
+     */
+    fun hex(algorithm: String, data: ByteArray, offset: Int = 0, length: Int = data.size): String {
+        val md = get(algorithm)
+        md.update(data, offset, length)
+        return finish(md)
+    }
+
+    /**
+     * 计算 ByteBuffer 剩余字节的摘要，不改变其 position
+     */
+    fun hex(algorithm: String, data: ByteBuffer): String {
+        val md = get(algorithm)
+        md.update(data.duplicate())
+        return finish(md)
+    }
+
+    /**
+     * 将字符串按 UTF-8 分段编码并送入摘要
+     */
+    fun update(md: MessageDigest, text: CharSequence) {
+        val buffer = scratch.get()!!.encoded
+        val length = text.length
+        var start = 0
+        while (start < length) {
+            var end = minOf(start + CHUNK_CHARS, length)
+            // 不拆开代理对
+            if (end < length && Character.isHighSurrogate(text[end - 1])) end--
+            md.update(buffer, 0, Utf8.encode(text, start, end, buffer, 0))
+            start = end
+        }
+    }
+
+    private fun finish(md: MessageDigest): String {
+        val output = scratch.get()!!.output
+        val length = md.digestLength
+        if (length <= 0 || length > output.size) return Hex.encode(md.digest())
+        md.digest(output, 0, length)
+        return Hex.encode(output, 0, length)
+    }
+}
@@ -1,25 +1,35 @@
 package top.jessi.jhelper.enigma
 
+import android.os.CancellationSignal
+import android.os.OperationCanceledException
 import android.text.TextUtils
-import android.util.Base64
+import android.util.LruCache
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withContext
+import top.jessi.jhelper.file.Zip
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
 import java.math.BigInteger
 import java.net.URLDecoder
 import java.net.URLEncoder
+import java.nio.ByteBuffer
 import java.nio.charset.StandardCharsets
-import java.security.KeyFactory
 import java.security.KeyPair
 import java.security.KeyPairGenerator
-import java.security.MessageDigest
 import java.security.PrivateKey
 import java.security.PublicKey
-import java.security.spec.PKCS8EncodedKeySpec
+import java.security.spec.ECGenParameterSpec
 import java.security.spec.RSAKeyGenParameterSpec
-import java.security.spec.X509EncodedKeySpec
-import java.util.Locale
 import java.util.Random
+import java.util.zip.Checksum
 import javax.crypto.Cipher
-import javax.crypto.spec.IvParameterSpec
-import javax.crypto.spec.SecretKeySpec
 
 /**
  * Created by Jessi on 2022/8/12 17:06
@@ -28,48 +38,147 @@ import javax.crypto.spec.SecretKeySpec
  */
 object Enigma {
 
+    // 最近使用的AES上下文（key + iv → 已初始化的 Cipher 池）
+    private val aesContexts = LruCache<String, AesContext>(16)
+
+    /**
+     * 摘要计算均复用当前线程的 MessageDigest，字符串按 UTF-8 直接编码到复用缓冲区，
+     * 结果为 16 进制小写字符串；ByteBuffer 重载计算剩余字节且不改变其 position
+     */
     @JvmStatic
-    fun md5(plaintext: String): String {
-        // 创建摘要算法对象
-        val md = MessageDigest.getInstance("MD5")
-        val digest = md.digest(plaintext.toByteArray())
-        // 转 16 进制并补零,再直接拼接字符串
-        return digest.joinToString("") { "%02x".format(it) }
-    }
+    fun md5(plaintext: String): String = DigestPool.hex("MD5", plaintext)
+
+    @JvmStatic
+    fun md5(data: ByteArray): String = DigestPool.hex("MD5", data)
+
+    @JvmStatic
+    fun md5(data: ByteBuffer): String = DigestPool.hex("MD5", data)
 
     /********************************** SHA **********************************/
     @JvmStatic
-    fun sha1(plaintext: String): String {
-        val md = MessageDigest.getInstance("SHA-1")
-        val digest = md.digest(plaintext.toByteArray())
-        // 转 16 进制并补零,再直接拼接字符串
-        return digest.joinToString("") { "%02x".format(it) }
-    }
+    fun sha1(plaintext: String): String = DigestPool.hex("SHA-1", plaintext)
+
+    @JvmStatic
+    fun sha1(data: ByteArray): String = DigestPool.hex("SHA-1", data)
+
+    @JvmStatic
+    fun sha1(data: ByteBuffer): String = DigestPool.hex("SHA-1", data)
+
+    @JvmStatic
+    fun sha256(plaintext: String): String = DigestPool.hex("SHA-256", plaintext)
+
+    @JvmStatic
+    fun sha256(data: ByteArray): String = DigestPool.hex("SHA-256", data)
+
+    @JvmStatic
+    fun sha256(data: ByteBuffer): String = DigestPool.hex("SHA-256", data)
+
+    @JvmStatic
+    fun sha384(plaintext: String): String = DigestPool.hex("SHA-384", plaintext)
 
     @JvmStatic
-    fun sha256(plaintext: String): String {
-        val md = MessageDigest.getInstance("SHA-256")
-        val digest = md.digest(plaintext.toByteArray())
-        // 转 16 进制并补零,再直接拼接字符串
-        return digest.joinToString("") { "%02x".format(it) }
+    fun sha384(data: ByteArray): String = DigestPool.hex("SHA-384", data)
+
+    @JvmStatic
+    fun sha384(data: ByteBuffer): String = DigestPool.hex("SHA-384", data)
+
+    @JvmStatic
+    fun sha512(plaintext: String): String = DigestPool.hex("SHA-512", plaintext)
+
+    @JvmStatic
+    fun sha512(data: ByteArray): String = DigestPool.hex("SHA-512", data)
+
+    @JvmStatic
+    fun sha512(data: ByteBuffer): String = DigestPool.hex("SHA-512", data)
+    /********************************** SHA **********************************/
+
+    /********************************** FAST HASH **********************************/
+    /**
+     * xxHash64 非加密哈希，结果为 16 位 16 进制小写字符串
+     * 速度远高于 MD5，适合缓存键、去重；不能用于签名、密码等安全场景
+     * 字符串按 UTF-16 码元直接计算（不做编码），结果与按 UTF-8 字节计算的值不同，流式与文件计算见 [XxHash64]
+     */
+    @JvmStatic
+    fun xxHash64(plaintext: String): String = Hex.encode(XxHash64.hash(plaintext))
+
+    @JvmStatic
+    fun xxHash64(data: ByteArray): String = Hex.encode(XxHash64.hash(data))
+
+    @JvmStatic
+    fun xxHash64(data: ByteBuffer): String = Hex.encode(XxHash64.hash(data))
+
+    /**
+     * MurmurHash3 x64 128 位非加密哈希，结果为 32 位 16 进制小写字符串
+     * 碰撞概率低于 xxHash64，字符串同样按 UTF-16 码元计算，流式与文件计算见 [Murmur3]
+     */
+    @JvmStatic
+    fun murmur3(plaintext: String): String = Murmur3.toHex(Murmur3.hash128(plaintext))
+
+    @JvmStatic
+    fun murmur3(data: ByteArray): String = Murmur3.toHex(Murmur3.hash128(data))
+
+    @JvmStatic
+    fun murmur3(data: ByteBuffer): String = Murmur3.toHex(Murmur3.hash128(data))
+    /********************************** FAST HASH **********************************/
+
+    /********************************** CHECKSUM **********************************/
+    /**
+     * 计算 CRC32C 校验和，Android 14+ 使用系统实现（CPU 指令加速），以下使用 slice-by-8 查表实现
+     * 适合分块下载、数据包等完整性校验，文件校验见 [top.jessi.jhelper.file.Files.getFileCrc32c]
+     *
+     * @return 无符号 32 位校验和
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun crc32c(data: ByteArray, offset: Int = 0, length: Int = data.size): Long {
+        return Checksums.crc32c(data, offset, length)
     }
 
+    /**
+     * 计算 ByteBuffer 剩余字节的 CRC32C，不改变其 position
+     */
+    @JvmStatic
+    fun crc32c(data: ByteBuffer): Long = Checksums.crc32c(data)
+
+    /**
+     * 创建 CRC32C 实例，用于边接收边计算
+     */
     @JvmStatic
-    fun sha384(plaintext: String): String {
-        val md = MessageDigest.getInstance("SHA-384")
-        val digest = md.digest(plaintext.toByteArray())
-        // 转 16 进制并补零,再直接拼接字符串
-        return digest.joinToString("") { "%02x".format(it) }
+    fun newCrc32c(): Checksum = Checksums.newCrc32c()
+
+    /**
+     * 合并两段数据的 CRC32C，用于分块并行计算后得到整体校验和
+     *
+     * @param crc1    前一段的 CRC32C
+     * @param crc2    后一段的 CRC32C
+     * @param length2 后一段的长度
+     */
+    @JvmStatic
+    fun combineCrc32c(crc1: Long, crc2: Long, length2: Long): Long = Checksums.combineCrc32c(crc1, crc2, length2)
+
+    /**
+     * 计算 Adler32 校验和
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun adler32(data: ByteArray, offset: Int = 0, length: Int = data.size): Long {
+        return Checksums.adler32(data, offset, length)
     }
 
+    /**
+     * 计算 ByteBuffer 剩余字节的 Adler32，不改变其 position
+     */
+    @JvmStatic
+    fun adler32(data: ByteBuffer): Long = Checksums.adler32(data)
+
+    /**
+     * 合并两段数据的 Adler32
+     */
     @JvmStatic
-    fun sha512(plaintext: String): String {
-        val md = MessageDigest.getInstance("SHA-512")
-        val digest = md.digest(plaintext.toByteArray())
-        // 转 16 进制并补零,再直接拼接字符串
-        return digest.joinToString("") { "%02x".format(it) }
+    fun combineAdler32(adler1: Long, adler2: Long, length2: Long): Long {
+        return Checksums.combineAdler32(adler1, adler2, length2)
     }
-    /********************************** SHA **********************************/
+    /********************************** CHECKSUM **********************************/
 
     /********************************** CAESAR **********************************/
     @JvmStatic
@@ -227,13 +336,8 @@ object Enigma {
     fun encryptAes(plaintext: ByteArray, key: String, iv: String): ByteArray {
         return try {
             if (plaintext.isEmpty()) throw IllegalArgumentException("The plaintext cannot be empty.")
-            checkAesKeyAndIv(key, iv)
             // 如果数据安全性要求很高，考虑改用 AES/GCM/NoPadding，它自带认证（防篡改）
-            val cipher = Cipher.getInstance("AES/CBC/PKCS5Padding")
-            val keySpec = SecretKeySpec(key.toByteArray(StandardCharsets.UTF_8), "AES")
-            val ivSpec = IvParameterSpec(iv.toByteArray(StandardCharsets.UTF_8))
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec, ivSpec)
-            cipher.doFinal(plaintext)
+            getAesContext(key, iv).encrypt(plaintext)
         } catch (e: Exception) {
             e.printStackTrace()
             ByteArray(0)
@@ -272,12 +376,7 @@ object Enigma {
     fun decryptAes(ciphertext: ByteArray, key: String, iv: String): ByteArray {
         return try {
             if (ciphertext.isEmpty()) throw IllegalArgumentException("The ciphertext cannot be empty.")
-            checkAesKeyAndIv(key, iv)
-            val cipher = Cipher.getInstance("AES/CBC/PKCS5Padding")
-            val keySpec = SecretKeySpec(key.toByteArray(StandardCharsets.UTF_8), "AES")
-            val ivSpec = IvParameterSpec(iv.toByteArray(StandardCharsets.UTF_8))
-            cipher.init(Cipher.DECRYPT_MODE, keySpec, ivSpec)
-            cipher.doFinal(ciphertext)
+            getAesContext(key, iv).decrypt(ciphertext)
         } catch (e: Exception) {
             e.printStackTrace()
             ByteArray(0)
@@ -304,6 +403,199 @@ object Enigma {
         }
     }
 
+    /**
+     * AES流式加密，内存占用与数据大小无关；不会关闭输入输出流
+     *
+     * @param input    明文输入流
+     * @param output   密文输出流
+     * @param key      密钥
+     * @param iv       偏移量
+     * @param signal   取消信号，可为 null
+     * @param listener 进度回调（在当前线程上回调），可为 null
+     * @return 是否成功，失败或被取消时返回false
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun encryptAes(
+        input: InputStream, output: OutputStream, key: String, iv: String,
+        signal: CancellationSignal? = null, listener: Zip.ProgressListener? = null
+    ): Boolean {
+        return try {
+            getAesContext(key, iv).encrypt(input, output, -1, signal, listener)
+            true
+        } catch (e: OperationCanceledException) {
+            false
+        } catch (e: Exception) {
+            e.printStackTrace()
+            false
+        }
+    }
+
+    /**
+     * AES流式解密，内存占用与数据大小无关；不会关闭输入输出流
+     *
+     * @param input    密文输入流
+     * @param output   明文输出流
+     * @param key      密钥
+     * @param iv       偏移量
+     * @param signal   取消信号，可为 null
+     * @param listener 进度回调（在当前线程上回调），可为 null
+     * @return 是否成功，失败或被取消时返回false
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun decryptAes(
+        input: InputStream, output: OutputStream, key: String, iv: String,
+        signal: CancellationSignal? = null, listener: Zip.ProgressListener? = null
+    ): Boolean {
+        return try {
+            getAesContext(key, iv).decrypt(input, output, -1, signal, listener)
+            true
+        } catch (e: OperationCanceledException) {
+            false
+        } catch (e: Exception) {
+            e.printStackTrace()
+            false
+        }
+    }
+
+    /**
+     * AES加密文件，先写入临时文件，成功后再重命名为目标文件
+     *
+     * @param src      明文文件
+     * @param dst      密文文件
+     * @param key      密钥
+     * @param iv       偏移量
+     * @param signal   取消信号，可为 null
+     * @param listener 进度回调（在当前线程上回调），可为 null
+     * @return 是否成功，失败或被取消时目标文件保持不变
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun encryptFile(
+        src: File, dst: File, key: String, iv: String,
+        signal: CancellationSignal? = null, listener: Zip.ProgressListener? = null
+    ): Boolean = transformFile(src, dst, true, key, iv, signal, listener)
+
+    /**
+     * AES解密文件，先写入临时文件，成功后再重命名为目标文件
+     *
+     * @param src      密文文件
+     * @param dst      明文文件
+     * @param key      密钥
+     * @param iv       偏移量
+     * @param signal   取消信号，可为 null
+     * @param listener 进度回调（在当前线程上回调），可为 null
+     * @return 是否成功，失败或被取消时目标文件保持不变
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun decryptFile(
+        src: File, dst: File, key: String, iv: String,
+        signal: CancellationSignal? = null, listener: Zip.ProgressListener? = null
+    ): Boolean = transformFile(src, dst, false, key, iv, signal, listener)
+
+    /**
+     * 分段认证加密文件（AES-GCM），各段并行处理，可通过 [SegmentedAead.open] 随机访问解密
+     *
+     * @param src      明文文件
+     * @param dst      密文文件
+     * @param key      密钥（16/24/32 字节）
+     * @param signal   取消信号，可为 null
+     * @param listener 进度回调（在工作线程上回调），可为 null
+     * @return 是否成功，失败或被取消时目标文件保持不变
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun encryptFileGcm(
+        src: File, dst: File, key: String,
+        signal: CancellationSignal? = null, listener: Zip.ProgressListener? = null
+    ): Boolean {
+        return try {
+            SegmentedAead.encryptFile(
+                src, dst, key.toByteArray(StandardCharsets.UTF_8),
+                signal = signal, listener = listener
+            )
+            true
+        } catch (e: OperationCanceledException) {
+            false
+        } catch (e: Exception) {
+            e.printStackTrace()
+            false
+        }
+    }
+
+    /**
+     * 解密分段认证加密的文件，内容被篡改或截断时返回false
+     *
+     * @param src      密文文件
+     * @param dst      明文文件
+     * @param key      密钥（16/24/32 字节）
+     * @param signal   取消信号，可为 null
+     * @param listener 进度回调（在工作线程上回调），可为 null
+     * @return 是否成功，失败或被取消时目标文件保持不变
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun decryptFileGcm(
+        src: File, dst: File, key: String,
+        signal: CancellationSignal? = null, listener: Zip.ProgressListener? = null
+    ): Boolean {
+        return try {
+            SegmentedAead.decryptFile(
+                src, dst, key.toByteArray(StandardCharsets.UTF_8),
+                signal = signal, listener = listener
+            )
+            true
+        } catch (e: OperationCanceledException) {
+            false
+        } catch (e: Exception) {
+            e.printStackTrace()
+            false
+        }
+    }
+
+    private fun transformFile(
+        src: File, dst: File, encrypt: Boolean, key: String, iv: String,
+        signal: CancellationSignal?, listener: Zip.ProgressListener?
+    ): Boolean {
+        val tempFile = File("${dst.absolutePath}.tmp")
+        return try {
+            val context = getAesContext(key, iv)
+            FileInputStream(src).use { input ->
+                FileOutputStream(tempFile).use { output ->
+                    if (encrypt) {
+                        context.encrypt(input, output, src.length(), signal, listener)
+                    } else {
+                        context.decrypt(input, output, src.length(), signal, listener)
+                    }
+                }
+            }
+            if (!tempFile.renameTo(dst)) {
+                dst.delete()
+                if (!tempFile.renameTo(dst)) throw IOException("Rename failed: $dst")
+            }
+            true
+        } catch (e: OperationCanceledException) {
+            tempFile.delete()
+            false
+        } catch (e: Exception) {
+            e.printStackTrace()
+            tempFile.delete()
+            false
+        }
+    }
+
+    /**
+     * 获取缓存的AES上下文，同一组key和iv只校验、构建一次
+     */
+    private fun getAesContext(key: String, iv: String): AesContext {
+        val cacheKey = "$key\u0000$iv"
+        aesContexts.get(cacheKey)?.let { return it }
+        checkAesKeyAndIv(key, iv)
+        return AesContext(key, iv).also { aesContexts.put(cacheKey, it) }
+    }
+
     /**
      * 检查AES加密key和iv是否合规
      * @param key AES 支持 128、192、256 位，也就是 16 / 24 / 32 字节
@@ -324,11 +616,21 @@ object Enigma {
      * 公钥加密-私钥解密：任何人都可以写，但只有自己能读（私钥持有者），称为“加密”。由于私钥是不公开的，确保了内容的保密，没有私钥无法获得内容
      * 私钥加密-公钥解密：任何人都可以读，但只有自己能写（私钥持有者），称为“签名”。由于公钥是公开的，任何人都可以解密内容，但只能用发布者的公钥解密，验证了内容是该发布者发出的
      *
+     * 已通过 [RsaKeyPool.start] 启动密钥池时直接取用预生成的密钥对
+     *
      * @param keySize 密钥长度  一般都是2048  低了不安全   高了加密太慢
      * @return 公钥和私钥
      */
     @JvmStatic
     fun createRsaKey(keySize: Int = 2048): Map<String, String> {
+        // 优先从后台预生成的密钥池中取用
+        return RsaKeyPool.poll(keySize) ?: generateRsaKey(keySize)
+    }
+
+    /**
+     * 同步生成 RSA 密钥对
+     */
+    internal fun generateRsaKey(keySize: Int): Map<String, String> {
         // 实例化密钥对生成器
         val generator = KeyPairGenerator.getInstance("RSA")
         // 设置密钥对长度和偏移量
@@ -348,9 +650,7 @@ object Enigma {
     /** 公钥加密 */
     @JvmStatic
     fun encryptRsaPublic(plaintext: String, keyPublic: String): String {
-        val keySpec = X509EncodedKeySpec(decodeBase64Byte(keyPublic))
-        val keyFactory = KeyFactory.getInstance("RSA")
-        val publicKey: PublicKey = keyFactory.generatePublic(keySpec)
+        val publicKey: PublicKey = KeyCache.publicKey(keyPublic)
         val cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding")
         cipher.init(Cipher.ENCRYPT_MODE, publicKey)
         return encodeBase64Byte(cipher.doFinal(plaintext.toByteArray(StandardCharsets.UTF_8)))
@@ -359,9 +659,7 @@ object Enigma {
     /** 私钥加密（签名用） */
     @JvmStatic
     fun encryptRsaPrivate(plaintext: String, keyPrivate: String): String {
-        val keySpec = PKCS8EncodedKeySpec(decodeBase64Byte(keyPrivate))
-        val keyFactory = KeyFactory.getInstance("RSA")
-        val privateKey: PrivateKey = keyFactory.generatePrivate(keySpec)
+        val privateKey: PrivateKey = KeyCache.privateKey(keyPrivate)
         val cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding")
         cipher.init(Cipher.ENCRYPT_MODE, privateKey)
         return encodeBase64Byte(cipher.doFinal(plaintext.toByteArray(StandardCharsets.UTF_8)))
@@ -370,9 +668,7 @@ object Enigma {
     /** 公钥解密（解密私钥加密的） */
     @JvmStatic
     fun decryptRsaPublic(ciphertext: String, keyPublic: String): String {
-        val keySpec = X509EncodedKeySpec(decodeBase64Byte(keyPublic))
-        val keyFactory = KeyFactory.getInstance("RSA")
-        val publicKey: PublicKey = keyFactory.generatePublic(keySpec)
+        val publicKey: PublicKey = KeyCache.publicKey(keyPublic)
         val cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding")
         cipher.init(Cipher.DECRYPT_MODE, publicKey)
         return String(cipher.doFinal(decodeBase64Byte(ciphertext)), StandardCharsets.UTF_8)
@@ -381,78 +677,460 @@ object Enigma {
     /** 私钥解密（解密公钥加密的） */
     @JvmStatic
     fun decryptRsaPrivate(ciphertext: String, keyPrivate: String): String {
-        val keySpec = PKCS8EncodedKeySpec(decodeBase64Byte(keyPrivate))
-        val keyFactory = KeyFactory.getInstance("RSA")
-        val privateKey: PrivateKey = keyFactory.generatePrivate(keySpec)
+        val privateKey: PrivateKey = KeyCache.privateKey(keyPrivate)
         val cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding")
         cipher.init(Cipher.DECRYPT_MODE, privateKey)
         return String(cipher.doFinal(decodeBase64Byte(ciphertext)), StandardCharsets.UTF_8)
     }
 
+    /**
+     * 信封加密（RSA-OAEP 包装随机 AES 密钥，AES-GCM 加密数据），不受 RSA 分组长度限制，
+     * 同一公钥连续加密时复用已包装的数据密钥，批量加密几乎没有 RSA 开销
+     *
+     * @param plaintext 明文
+     * @param keyPublic Base64 公钥
+     * @return Base64 密文，失败返回空字符串
+     */
+    @JvmStatic
+    fun encryptEnvelope(plaintext: ByteArray, keyPublic: String): String {
+        return try {
+            encodeBase64Byte(Envelope.seal(plaintext, KeyCache.publicKey(keyPublic)))
+        } catch (e: Exception) {
+            e.printStackTrace()
+            ""
+        }
+    }
+
+    /**
+     * 信封加密字符串（UTF-8）
+     *
+     * @param plaintext 明文
+     * @param keyPublic Base64 公钥
+     * @return Base64 密文，失败返回空字符串
+     */
+    @JvmStatic
+    fun encryptEnvelope(plaintext: String, keyPublic: String): String {
+        return encryptEnvelope(plaintext.toByteArray(StandardCharsets.UTF_8), keyPublic)
+    }
+
+    /**
+     * 信封解密（结果为字节数组），批量消息的数据密钥只需 RSA 解包一次
+     *
+     * @param ciphertext Base64 密文
+     * @param keyPrivate Base64 私钥
+     * @return 明文，失败或数据被篡改时返回空数组
+     */
+    @JvmStatic
+    fun decryptEnvelopeByte(ciphertext: String, keyPrivate: String): ByteArray {
+        return try {
+            Envelope.open(decodeBase64Byte(ciphertext), KeyCache.privateKey(keyPrivate))
+        } catch (e: Exception) {
+            e.printStackTrace()
+            ByteArray(0)
+        }
+    }
+
+    /**
+     * 信封解密（结果按 UTF-8 解码）
+     *
+     * @param ciphertext Base64 密文
+     * @param keyPrivate Base64 私钥
+     * @return 明文，失败或数据被篡改时返回空字符串
+     */
+    @JvmStatic
+    fun decryptEnvelope(ciphertext: String, keyPrivate: String): String {
+        return String(decryptEnvelopeByte(ciphertext, keyPrivate), StandardCharsets.UTF_8)
+    }
+
+    /**
+     * 清除已解析的密钥与信封数据密钥缓存
+     */
+    @JvmStatic
+    fun clearKeyCache() {
+        KeyCache.clear()
+        Envelope.clear()
+    }
+
     /********************************** RSA **********************************/
 
+    /********************************** SIGNATURE **********************************/
+    /** RSA 签名算法 */
+    const val SIGN_RSA = "SHA256withRSA"
+
+    /** ECDSA（P-256）签名算法 */
+    const val SIGN_ECDSA = "SHA256withECDSA"
+
+    /**
+     * 待验证的签名项
+     *
+     * @param data      原始数据
+     * @param signature Base64 签名
+     * @param keyPublic Base64 公钥
+     */
+    class SignedItem(val data: ByteArray, val signature: String, val keyPublic: String)
+
+    /**
+     * 创建 ECDSA P-256 密钥对
+     *
+     * @return 公钥和私钥（Base64），键与 [createRsaKey] 一致
+     */
     @JvmStatic
-    fun encodeBase64(plaintext: String): String {
-        return Base64.encodeToString(plaintext.toByteArray(StandardCharsets.UTF_8), Base64.NO_WRAP)
+    fun createEcKey(): Map<String, String> {
+        val generator = KeyPairGenerator.getInstance("EC")
+        generator.initialize(ECGenParameterSpec("secp256r1"))
+        val keyPair: KeyPair = generator.generateKeyPair()
+        return mapOf(
+            "publicKey" to encodeBase64Byte(keyPair.public.encoded),
+            "privateKey" to encodeBase64Byte(keyPair.private.encoded)
+        )
     }
 
+    /**
+     * 签名，私钥解析结果与 Signature 实例均会被复用
+     *
+     * @param data       原始数据
+     * @param keyPrivate Base64 私钥（RSA 或 EC，与算法对应）
+     * @param algorithm  [SIGN_RSA] 或 [SIGN_ECDSA]
+     * @return Base64 签名，失败返回空字符串
+     */
     @JvmStatic
-    fun encodeBase64Byte(plaintext: ByteArray): String {
-        return Base64.encodeToString(plaintext, Base64.NO_WRAP)
+    @JvmOverloads
+    fun sign(data: ByteArray, keyPrivate: String, algorithm: String = SIGN_RSA): String {
+        return try {
+            encodeBase64Byte(SignaturePool.sign(algorithm, KeyCache.privateKey(keyPrivate, keyAlgorithm(algorithm)), data))
+        } catch (e: Exception) {
+            e.printStackTrace()
+            ""
+        }
     }
 
+    /**
+     * 对字符串（UTF-8）签名
+     */
     @JvmStatic
-    fun decodeBase64(ciphertext: String): String {
-        return String(Base64.decode(ciphertext, Base64.NO_WRAP), StandardCharsets.UTF_8)
+    @JvmOverloads
+    fun sign(data: String, keyPrivate: String, algorithm: String = SIGN_RSA): String {
+        return sign(data.toByteArray(StandardCharsets.UTF_8), keyPrivate, algorithm)
     }
 
+    /**
+     * 验证签名
+     *
+     * @param data      原始数据
+     * @param signature Base64 签名
+     * @param keyPublic Base64 公钥（RSA 或 EC，与算法对应）
+     * @param algorithm [SIGN_RSA] 或 [SIGN_ECDSA]
+     * @return 签名是否有效
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun verify(data: ByteArray, signature: String, keyPublic: String, algorithm: String = SIGN_RSA): Boolean {
+        return try {
+            val key = KeyCache.publicKey(keyPublic, keyAlgorithm(algorithm))
+            SignaturePool.verify(algorithm, key, data, decodeBase64Byte(signature))
+        } catch (e: Exception) {
+            e.printStackTrace()
+            false
+        }
+    }
+
+    /**
+     * 验证字符串（UTF-8）的签名
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun verify(data: String, signature: String, keyPublic: String, algorithm: String = SIGN_RSA): Boolean {
+        return verify(data.toByteArray(StandardCharsets.UTF_8), signature, keyPublic, algorithm)
+    }
+
+    /**
+     * 批量验证签名，按 CPU 核心数分片并行验证
+     * 阻塞直到全部完成，供 Java 调用；不要在主线程或 [Dispatchers.Default] 上调用，协程中请使用 [awaitVerifyAll]
+     *
+     * @param items     待验证项
+     * @param algorithm [SIGN_RSA] 或 [SIGN_ECDSA]
+     * @return 与 items 一一对应的验证结果
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun verifyAll(items: List<SignedItem>, algorithm: String = SIGN_RSA): BooleanArray {
+        if (items.isEmpty()) return BooleanArray(0)
+        return runBlocking { awaitVerifyAll(items, algorithm) }
+    }
+
+    /**
+     * 批量验证签名，在 [Dispatchers.Default] 上按 CPU 核心数分片并行验证，可随协程取消
+     *
+     * @param items     待验证项
+     * @param algorithm [SIGN_RSA] 或 [SIGN_ECDSA]
+     * @return 与 items 一一对应的验证结果
+     */
+    @JvmStatic
+    suspend fun awaitVerifyAll(items: List<SignedItem>, algorithm: String = SIGN_RSA): BooleanArray {
+        val results = BooleanArray(items.size)
+        if (items.isEmpty()) return results
+        val chunks = minOf(items.size, Runtime.getRuntime().availableProcessors())
+        val chunkSize = (items.size + chunks - 1) / chunks
+        withContext(Dispatchers.Default) {
+            for (chunk in 0 until chunks) {
+                launch {
+                    val end = minOf(items.size, (chunk + 1) * chunkSize)
+                    for (i in chunk * chunkSize until end) {
+                        ensureActive()
+                        val item = items[i]
+                        results[i] = verify(item.data, item.signature, item.keyPublic, algorithm)
+                    }
+                }
+            }
+        }
+        return results
+    }
+
+    private fun keyAlgorithm(signAlgorithm: String): String {
+        return if (signAlgorithm.endsWith("withECDSA", ignoreCase = true)) "EC" else "RSA"
+    }
+    /********************************** SIGNATURE **********************************/
+
+    /********************************** HMAC **********************************/
+    /** HMAC-SHA256 算法 */
+    const val HMAC_SHA256 = "HmacSHA256"
+
+    /**
+     * 计算 HMAC，结果为 16 进制小写字符串
+     * 每个线程按密钥缓存已初始化的 Mac 实例，同一密钥高频调用时无需重复 init
+     *
+     * @param algorithm 算法，如 [HMAC_SHA256]、HmacSHA1、HmacSHA512
+     * @param key       密钥
+     * @param data      数据
+     * @return MAC，失败返回空字符串
+     */
+    @JvmStatic
+    fun hmac(algorithm: String, key: ByteArray, data: ByteArray): String {
+        return try {
+            val length = MacPool.compute(algorithm, key, data, 0, data.size)
+            Hex.encode(MacPool.output, 0, length)
+        } catch (e: Exception) {
+            e.printStackTrace()
+            ""
+        }
+    }
+
+    /**
+     * 计算 HMAC（密钥与数据按 UTF-8 编码），结果为 16 进制小写字符串
+     */
+    @JvmStatic
+    fun hmac(algorithm: String, key: String, data: String): String {
+        return try {
+            val keyBytes = key.toByteArray(StandardCharsets.UTF_8)
+            val length = MacPool.compute(algorithm, keyBytes, data)
+            Hex.encode(MacPool.output, 0, length)
+        } catch (e: Exception) {
+            e.printStackTrace()
+            ""
+        }
+    }
+
+    /**
+     * 计算 ByteBuffer 剩余字节的 HMAC（不改变其 position），结果为 16 进制小写字符串
+     */
+    @JvmStatic
+    fun hmac(algorithm: String, key: ByteArray, data: ByteBuffer): String {
+        return try {
+            val length = MacPool.compute(algorithm, key, data)
+            Hex.encode(MacPool.output, 0, length)
+        } catch (e: Exception) {
+            e.printStackTrace()
+            ""
+        }
+    }
+
+    /**
+     * 计算输入流全部内容的 HMAC（不会关闭输入流），结果为 16 进制小写字符串
+     */
+    @JvmStatic
+    fun hmac(algorithm: String, key: ByteArray, input: InputStream): String {
+        return try {
+            val length = MacPool.compute(algorithm, key, input)
+            Hex.encode(MacPool.output, 0, length)
+        } catch (e: Exception) {
+            e.printStackTrace()
+            ""
+        }
+    }
+
+    /**
+     * 计算 HMAC，结果为 Base64 字符串（NO_WRAP）
+     */
+    @JvmStatic
+    fun hmacBase64(algorithm: String, key: ByteArray, data: ByteArray): String {
+        return try {
+            val length = MacPool.compute(algorithm, key, data, 0, data.size)
+            Base64Codec.encode(MacPool.output, 0, length)
+        } catch (e: Exception) {
+            e.printStackTrace()
+            ""
+        }
+    }
+
+    /**
+     * 计算 HMAC（密钥与数据按 UTF-8 编码），结果为 Base64 字符串（NO_WRAP）
+     */
+    @JvmStatic
+    fun hmacBase64(algorithm: String, key: String, data: String): String {
+        return try {
+            val keyBytes = key.toByteArray(StandardCharsets.UTF_8)
+            val length = MacPool.compute(algorithm, keyBytes, data)
+            Base64Codec.encode(MacPool.output, 0, length)
+        } catch (e: Exception) {
+            e.printStackTrace()
+            ""
+        }
+    }
+
+    /**
+     * 计算 HMAC，结果为原始字节
+     *
+     * @return MAC，失败返回空数组
+     */
+    @JvmStatic
+    fun hmacBytes(algorithm: String, key: ByteArray, data: ByteArray): ByteArray {
+        return try {
+            val length = MacPool.compute(algorithm, key, data, 0, data.size)
+            MacPool.output.copyOf(length)
+        } catch (e: Exception) {
+            e.printStackTrace()
+            ByteArray(0)
+        }
+    }
+    /********************************** HMAC **********************************/
+
+    /********************************** CODEC **********************************/
+    /**
+     * Base64 编解码均为查表实现（标准字母表、不换行），结果与 android.util.Base64.NO_WRAP 一致
+     */
+    @JvmStatic
+    fun encodeBase64(plaintext: String): String {
+        return Base64Codec.encode(plaintext.toByteArray(StandardCharsets.UTF_8))
+    }
+
+    @JvmStatic
+    fun encodeBase64Byte(plaintext: ByteArray): String = Base64Codec.encode(plaintext)
+
+    @JvmStatic
+    fun decodeBase64(ciphertext: String): String = String(decodeBase64Byte(ciphertext), StandardCharsets.UTF_8)
+
     @JvmStatic
     fun decodeBase64Byte(ciphertext: String): ByteArray {
-        return Base64.decode(ciphertext.toByteArray(), Base64.NO_WRAP)
+        val result = ByteArray(Base64Codec.maxDecodedLength(ciphertext.length))
+        val length = Base64Codec.decode(ciphertext, 0, ciphertext.length, result, 0)
+        return if (length == result.size) result else result.copyOf(length)
+    }
+
+    /**
+     * Base64 编码到调用方提供的字符数组，dest 需要 (length + 2) / 3 * 4 个字符的空间
+     *
+     * @return 写入的字符数
+     */
+    @JvmStatic
+    fun encodeBase64(src: ByteArray, offset: Int, length: Int, dest: CharArray, destOffset: Int): Int {
+        return Base64Codec.encode(src, offset, length, dest, destOffset)
+    }
+
+    /**
+     * Base64 编码 src 的剩余字节，以 ASCII 写入 dest，两者的 position 都会前移
+     *
+     * @return 写入 dest 的字节数
+     */
+    @JvmStatic
+    fun encodeBase64(src: ByteBuffer, dest: ByteBuffer): Int = Base64Codec.encode(src, dest)
+
+    /**
+     * Base64 解码到调用方提供的字节数组，dest 需要 src.length * 3 / 4 个字节的空间
+     *
+     * @return 写入的字节数
+     * @throws IllegalArgumentException 不是合法的 Base64
+     */
+    @JvmStatic
+    fun decodeBase64(src: CharSequence, dest: ByteArray, destOffset: Int): Int {
+        return Base64Codec.decode(src, 0, src.length, dest, destOffset)
     }
 
+    /**
+     * Base64 解码 src 的剩余 ASCII 字节写入 dest，两者的 position 都会前移
+     *
+     * @return 写入 dest 的字节数
+     * @throws IllegalArgumentException 不是合法的 Base64
+     */
+    @JvmStatic
+    fun decodeBase64(src: ByteBuffer, dest: ByteBuffer): Int = Base64Codec.decode(src, dest)
+
+    /**
+     * 包装为边写边 Base64 编码的输出流，适合大数据量，写完后必须 close（会同时关闭 output）
+     */
+    @JvmStatic
+    fun base64Encoder(output: OutputStream): OutputStream = Base64EncoderStream(output)
+
+    /**
+     * 包装为边读边 Base64 解码的输入流，适合大数据量，数据不合法时读取会抛出 IOException
+     */
+    @JvmStatic
+    fun base64Decoder(input: InputStream): InputStream = Base64DecoderStream(input)
+
     /**
      * 字节数组转成16进制字符串
      *
      * @param bytes 字节数组
-     * @return 16进制字符串
-     */
-    @JvmStatic
-    fun byteToHex(bytes: ByteArray): String {
-        // 一个字节的数
-        val sb = StringBuilder(bytes.size * 2)
-        var temp: String
-        for (byte in bytes) {
-            // 整数转成十六进制表示
-            temp = Integer.toHexString(byte.toInt() and 0XFF)
-            if (temp.length == 1) {
-                sb.append("0")
-            }
-            sb.append(temp)
-        }
-        // 转成大写
-        return sb.toString().uppercase(Locale.getDefault())
+     * @return 16进制字符串（大写）
+     */
+    @JvmStatic
+    fun byteToHex(bytes: ByteArray): String = Hex.encode(bytes, upper = true)
+
+    /**
+     * 字节数组转成16进制（大写）写入调用方提供的字符数组，dest 需要 length * 2 个字符的空间
+     *
+     * @return 写入的字符数
+     */
+    @JvmStatic
+    fun byteToHex(bytes: ByteArray, offset: Int, length: Int, dest: CharArray, destOffset: Int): Int {
+        return Hex.encode(bytes, offset, length, dest, destOffset, true)
     }
 
     /**
      * 将16进制字符串转换成字节数组
      *
-     * @param hex 16进制字符串
+     * @param hex 16进制字符串（大小写均可，长度为奇数时忽略最后一个字符）
      * @return 字节数组
+     * @throws NumberFormatException 含有非 16 进制字符
      */
     @JvmStatic
     fun hexToByte(hex: String): ByteArray {
         if (TextUtils.isEmpty(hex) || hex.length < 2) return ByteArray(0)
-        val tempHexStr = hex.lowercase()
-        val len = tempHexStr.length / 2
-        val result = ByteArray(len)
-        for (i in 0 until len) {
-            val temp = tempHexStr.substring(2 * i, 2 * i + 2)
-            result[i] = (temp.toInt(16) and 0xFF).toByte()
-        }
+        val result = ByteArray(hex.length / 2)
+        Hex.decode(hex, 0, hex.length, result, 0)
         return result
     }
 
+    /**
+     * 将16进制字符串转换后写入调用方提供的字节数组，dest 需要 hex.length / 2 个字节的空间
+     *
+     * @return 写入的字节数
+     * @throws NumberFormatException 含有非 16 进制字符
+     */
+    @JvmStatic
+    fun hexToByte(hex: CharSequence, dest: ByteArray, destOffset: Int): Int {
+        return Hex.decode(hex, 0, hex.length, dest, destOffset)
+    }
+
+    /**
+     * 将16进制字符串转换后写入 dest，dest 的 position 会前移
+     *
+     * @return 写入的字节数
+     * @throws NumberFormatException 含有非 16 进制字符
+     */
+    @JvmStatic
+    fun hexToByte(hex: CharSequence, dest: ByteBuffer): Int = Hex.decode(hex, 0, hex.length, dest)
+    /********************************** CODEC **********************************/
+
     /** 16进制转10进制 */
     @JvmStatic
     fun hexToDec(hexString: String): BigInteger {
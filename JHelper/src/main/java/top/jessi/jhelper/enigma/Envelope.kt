@@ -0,0 +1,130 @@
+package top.jessi.jhelper.enigma
+
+import android.util.LruCache
+import java.nio.ByteBuffer
+import java.security.GeneralSecurityException
+import java.security.PrivateKey
+import java.security.PublicKey
+import java.security.SecureRandom
+import java.security.spec.MGF1ParameterSpec
+import java.util.concurrent.atomic.AtomicLong
+import javax.crypto.Cipher
+import javax.crypto.spec.GCMParameterSpec
+import javax.crypto.spec.OAEPParameterSpec
+import javax.crypto.spec.PSource
+import javax.crypto.spec.SecretKeySpec
+
+/**
+ * Created by Jessi on 2026/10/19 22:40
+ * Email：17324719944@189.cn
+ * Describe：RSA + AES 混合（信封）加密
+ *
+ * 随机生成的 AES-256 数据密钥以 AES-GCM 加密数据，数据密钥再用 RSA-OAEP(SHA-256) 包装，
+ * 因此可以加密任意长度的数据。同一公钥连续加密时复用已包装的数据密钥（达到使用次数上限后轮换），
+ * 解密端按包装后的密钥缓存解出的数据密钥，批量消息只有第一条需要 RSA 运算。
+ *
+ * 格式：版本(1) | 包装密钥长度(2，大端) | 包装密钥 | IV(12) | 密文 + 认证标签(16)
+ */
+internal object Envelope {
+
+    private const val VERSION: Byte = 1
+    private const val DATA_KEY_SIZE = 32
+    private const val IV_SIZE = 12
+    private const val TAG_BITS = 128
+    // 随机 IV 下同一数据密钥的安全使用次数远大于此，保守轮换
+    private const val MAX_KEY_USES = 1L shl 24
+
+    private val OAEP_SPEC = OAEPParameterSpec(
+        "SHA-256", "MGF1", MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT
+    )
+
+    private val random = SecureRandom()
+
+    private class DataKey(val key: SecretKeySpec, val wrapped: ByteArray) {
+        val uses = AtomicLong()
+    }
+
+    private data class OpenKey(val privateKey: PrivateKey, val wrapped: ByteBuffer)
+
+    // 加密端：公钥 → 当前数据密钥
+    private val sealKeys = LruCache<PublicKey, DataKey>(16)
+
+    // 解密端：私钥 + 包装密钥 → 数据密钥
+    private val openKeys = LruCache<OpenKey, SecretKeySpec>(64)
+
+    private val gcmCiphers = object : ThreadLocal<Cipher>() {
+        override fun initialValue(): Cipher = Cipher.getInstance("AES/GCM/NoPadding")
+    }
+
+    /**
+     * 加密
+     */
+    fun seal(plaintext: ByteArray, publicKey: PublicKey): ByteArray {
+        val dataKey = dataKey(publicKey)
+        val iv = ByteArray(IV_SIZE)
+        random.nextBytes(iv)
+        val cipher = gcmCiphers.get()!!
+        cipher.init(Cipher.ENCRYPT_MODE, dataKey.key, GCMParameterSpec(TAG_BITS, iv))
+        val wrapped = dataKey.wrapped
+        val headerSize = 3 + wrapped.size + IV_SIZE
+        val output = ByteArray(headerSize + cipher.getOutputSize(plaintext.size))
+        output[0] = VERSION
+        output[1] = (wrapped.size ushr 8).toByte()
+        output[2] = wrapped.size.toByte()
+        System.arraycopy(wrapped, 0, output, 3, wrapped.size)
+        System.arraycopy(iv, 0, output, 3 + wrapped.size, IV_SIZE)
+        val length = cipher.doFinal(plaintext, 0, plaintext.size, output, headerSize)
+        return if (headerSize + length == output.size) output else output.copyOf(headerSize + length)
+    }
+
+    /**
+     * 解密
+     *
+     * @throws GeneralSecurityException 格式错误、密钥不匹配或数据被篡改
+     */
+    fun open(envelope: ByteArray, privateKey: PrivateKey): ByteArray {
+        if (envelope.size < 3 || envelope[0] != VERSION) throw GeneralSecurityException("Invalid envelope")
+        val wrappedSize = ((envelope[1].toInt() and 0xFF) shl 8) or (envelope[2].toInt() and 0xFF)
+        val ivOffset = 3 + wrappedSize
+        val dataOffset = ivOffset + IV_SIZE
+        if (envelope.size < dataOffset + TAG_BITS / 8) throw GeneralSecurityException("Invalid envelope")
+
+        val openKey = OpenKey(privateKey, ByteBuffer.wrap(envelope, 3, wrappedSize).slice())
+        val key = openKeys.get(openKey) ?: run {
+            val rsa = Cipher.getInstance("RSA/ECB/OAEPPadding")
+            rsa.init(Cipher.DECRYPT_MODE, privateKey, OAEP_SPEC)
+            val unwrapped = SecretKeySpec(rsa.doFinal(envelope, 3, wrappedSize), "AES")
+            // 缓存键持有独立的包装密钥副本，不引用调用方数组
+            openKeys.put(OpenKey(privateKey, ByteBuffer.wrap(envelope.copyOfRange(3, ivOffset))), unwrapped)
+            unwrapped
+        }
+        val cipher = gcmCiphers.get()!!
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, GCMParameterSpec(TAG_BITS, envelope, ivOffset, IV_SIZE))
+            return cipher.doFinal(envelope, dataOffset, envelope.size - dataOffset)
+        } catch (e: GeneralSecurityException) {
+            gcmCiphers.remove()
+            throw e
+        }
+    }
+
+    /**
+     * 获取公钥当前的数据密钥，首次使用或达到使用上限时生成新密钥并用 RSA-OAEP 包装
+     */
+    private fun dataKey(publicKey: PublicKey): DataKey {
+        sealKeys.get(publicKey)?.let { if (it.uses.incrementAndGet() <= MAX_KEY_USES) return it }
+        val keyBytes = ByteArray(DATA_KEY_SIZE)
+        random.nextBytes(keyBytes)
+        val rsa = Cipher.getInstance("RSA/ECB/OAEPPadding")
+        rsa.init(Cipher.ENCRYPT_MODE, publicKey, OAEP_SPEC)
+        val dataKey = DataKey(SecretKeySpec(keyBytes, "AES"), rsa.doFinal(keyBytes))
+        dataKey.uses.incrementAndGet()
+        sealKeys.put(publicKey, dataKey)
+        return dataKey
+    }
+
+    fun clear() {
+        sealKeys.evictAll()
+        openKeys.evictAll()
+    }
+}
@@ -0,0 +1,135 @@
+package top.jessi.jhelper.enigma
+
+import java.nio.BufferOverflowException
+import java.nio.ByteBuffer
+
+/**
+ * Created by Jessi on 2026/10/19 21:05
+ * Email：17324719944@189.cn
+ * Describe：查表实现的 16 进制编解码
+ *
+ * 除返回 String 的方法外，均直接写入调用方提供的数组 / ByteBuffer，不产生中间对象
+ */
+internal object Hex {
+
+    private val LOWER = "0123456789abcdef".toCharArray()
+    private val UPPER = "0123456789ABCDEF".toCharArray()
+
+    // 字符 → 数值，非 16 进制字符为 -1
+    private val DECODE = IntArray(256) { -1 }.also { table ->
+        for (i in 0 until 16) {
+            table[LOWER[i].code] = i
+            table[UPPER[i].code] = i
+        }
+    }
+
+    /**
+     * 字节编码为 16 进制字符串
+     *
+     * @param upper 是否输出大写
+     */
+    fun encode(bytes: ByteArray, offset: Int = 0, length: Int = bytes.size, upper: Boolean = false): String {
+        val chars = CharArray(length * 2)
+        encode(bytes, offset, length, chars, 0, upper)
+        return String(chars)
+    }
+
+    /**
+     * 编码到调用方提供的字符数组
+     *
+     * @return 写入的字符数
+     */
+    fun encode(
+        bytes: ByteArray, offset: Int, length: Int, dest: CharArray, destOffset: Int, upper: Boolean = false
+    ): Int {
+        val table = if (upper) UPPER else LOWER
+        var p = destOffset
+        for (i in offset until offset + length) {
+            val v = bytes[i].toInt()
+            dest[p++] = table[(v ushr 4) and 0x0F]
+            dest[p++] = table[v and 0x0F]
+        }
+        return p - destOffset
+    }
+
+    /**
+     * 编码 src 的剩余字节到调用方提供的字符数组，src 的 position 会前移
+     *
+     * @return 写入的字符数
+     */
+    fun encode(src: ByteBuffer, dest: CharArray, destOffset: Int, upper: Boolean = false): Int {
+        if (src.hasArray()) {
+            val count = encode(src.array(), src.arrayOffset() + src.position(), src.remaining(), dest, destOffset, upper)
+            src.position(src.limit())
+            return count
+        }
+        val table = if (upper) UPPER else LOWER
+        var p = destOffset
+        while (src.hasRemaining()) {
+            val v = src.get().toInt()
+            dest[p++] = table[(v ushr 4) and 0x0F]
+            dest[p++] = table[v and 0x0F]
+        }
+        return p - destOffset
+    }
+
+    /**
+     * 整数按大端序编码为 16 位 16 进制小写字符串
+     */
+    fun encode(value: Long): String {
+        val chars = CharArray(16)
+        for (i in 0 until 16) {
+            chars[i] = LOWER[((value ushr (60 - i * 4)) and 0x0F).toInt()]
+        }
+        return String(chars)
+    }
+
+    /**
+     * 解码 [start, end) 区间（长度须为偶数，大小写均可）到调用方提供的字节数组
+     *
+     * @return 写入的字节数
+     * @throws NumberFormatException 含有非 16 进制字符
+     */
+    fun decode(text: CharSequence, start: Int, end: Int, dest: ByteArray, destOffset: Int): Int {
+        var p = destOffset
+        var i = start
+        while (i + 1 < end) {
+            dest[p++] = decodePair(text, i).toByte()
+            i += 2
+        }
+        return p - destOffset
+    }
+
+    /**
+     * 解码 [start, end) 区间写入 dest，dest 的 position 会前移
+     *
+     * @return 写入的字节数
+     * @throws NumberFormatException 含有非 16 进制字符
+     */
+    fun decode(text: CharSequence, start: Int, end: Int, dest: ByteBuffer): Int {
+        val count = (end - start) / 2
+        if (dest.hasArray()) {
+            if (dest.remaining() < count) throw BufferOverflowException()
+            decode(text, start, end, dest.array(), dest.arrayOffset() + dest.position())
+            dest.position(dest.position() + count)
+            return count
+        }
+        var i = start
+        while (i + 1 < end) {
+            dest.put(decodePair(text, i).toByte())
+            i += 2
+        }
+        return count
+    }
+
+    private fun decodePair(text: CharSequence, index: Int): Int {
+        val high = digit(text[index])
+        val low = digit(text[index + 1])
+        if (high < 0 || low < 0) {
+            throw NumberFormatException("Invalid hex: ${text.subSequence(index, index + 2)}")
+        }
+        return (high shl 4) or low
+    }
+
+    private fun digit(c: Char): Int = if (c.code < 256) DECODE[c.code] else -1
+}
@@ -0,0 +1,54 @@
+package top.jessi.jhelper.enigma
+
+import android.util.Base64
+import android.util.LruCache
+import java.security.KeyFactory
+import java.security.PrivateKey
+import java.security.PublicKey
+import java.security.spec.PKCS8EncodedKeySpec
+import java.security.spec.X509EncodedKeySpec
+
+/**
+ * Created by Jessi on 2026/10/19 22:40
+ * Email：17324719944@189.cn
+ * Describe：已解析公私钥缓存（RSA、EC）
+ *
+ * Base64 密钥字符串经 KeyFactory 解析的开销在毫秒级，解析结果按"算法 + 密钥字符串"缓存，
+ * 同一密钥的后续调用直接复用 [PublicKey] / [PrivateKey] 对象。
+ */
+internal object KeyCache {
+
+    private const val CACHE_SIZE = 32
+
+    private val publicKeys = LruCache<String, PublicKey>(CACHE_SIZE)
+    private val privateKeys = LruCache<String, PrivateKey>(CACHE_SIZE)
+
+    /**
+     * 解析 X.509 编码的 Base64 公钥
+     *
+     * @param algorithm 密钥算法，如 RSA、EC
+     */
+    fun publicKey(key: String, algorithm: String = "RSA"): PublicKey {
+        val cacheKey = "$algorithm:$key"
+        publicKeys.get(cacheKey)?.let { return it }
+        val spec = X509EncodedKeySpec(Base64.decode(key, Base64.NO_WRAP))
+        return KeyFactory.getInstance(algorithm).generatePublic(spec).also { publicKeys.put(cacheKey, it) }
+    }
+
+    /**
+     * 解析 PKCS#8 编码的 Base64 私钥
+     *
+     * @param algorithm 密钥算法，如 RSA、EC
+     */
+    fun privateKey(key: String, algorithm: String = "RSA"): PrivateKey {
+        val cacheKey = "$algorithm:$key"
+        privateKeys.get(cacheKey)?.let { return it }
+        val spec = PKCS8EncodedKeySpec(Base64.decode(key, Base64.NO_WRAP))
+        return KeyFactory.getInstance(algorithm).generatePrivate(spec).also { privateKeys.put(cacheKey, it) }
+    }
+
+    fun clear() {
+        publicKeys.evictAll()
+        privateKeys.evictAll()
+    }
+}
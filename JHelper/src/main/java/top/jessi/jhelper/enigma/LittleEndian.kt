@@ -0,0 +1,68 @@
+package top.jessi.jhelper.enigma
+
+/**
+ * Created by Jessi on 2026/10/19 14:16
+ * Email：17324719944@189.cn
+ * Describe：按小端序从字节数组 / 字符序列读取整数
+ *
+ * 字符序列按 UTF-16LE 码元读取，即每个 char 视为低字节在前的 2 个字节
+ */
+internal object LittleEndian {
+
+    fun getLong(bytes: ByteArray, index: Int): Long {
+        return (bytes[index].toLong() and 0xFF) or
+                ((bytes[index + 1].toLong() and 0xFF) shl 8) or
+                ((bytes[index + 2].toLong() and 0xFF) shl 16) or
+                ((bytes[index + 3].toLong() and 0xFF) shl 24) or
+                ((bytes[index + 4].toLong() and 0xFF) shl 32) or
+                ((bytes[index + 5].toLong() and 0xFF) shl 40) or
+                ((bytes[index + 6].toLong() and 0xFF) shl 48) or
+                ((bytes[index + 7].toLong() and 0xFF) shl 56)
+    }
+
+    fun getInt(bytes: ByteArray, index: Int): Int {
+        return (bytes[index].toInt() and 0xFF) or
+                ((bytes[index + 1].toInt() and 0xFF) shl 8) or
+                ((bytes[index + 2].toInt() and 0xFF) shl 16) or
+                ((bytes[index + 3].toInt() and 0xFF) shl 24)
+    }
+
+    /**
+     * 读取 4 个 char（8 个字节）
+     */
+    fun getLong(text: CharSequence, index: Int): Long {
+        return text[index].code.toLong() or
+                (text[index + 1].code.toLong() shl 16) or
+                (text[index + 2].code.toLong() shl 32) or
+                (text[index + 3].code.toLong() shl 48)
+    }
+
+    /**
+     * 读取 2 个 char（4 个字节）
+     */
+    fun getInt(text: CharSequence, index: Int): Int {
+        return text[index].code or (text[index + 1].code shl 16)
+    }
+
+    /**
+     * 读取按 UTF-16LE 展开后第 byteIndex 个字节
+     */
+    fun getByte(text: CharSequence, byteIndex: Int): Int {
+        return (text[byteIndex shr 1].code ushr ((byteIndex and 1) shl 3)) and 0xFF
+    }
+
+    /**
+     * 将 char 按 UTF-16LE 写入字节数组
+     *
+     * @return 写入的字节数
+     */
+    fun putChars(text: CharSequence, start: Int, end: Int, dest: ByteArray, offset: Int): Int {
+        var p = offset
+        for (i in start until end) {
+            val c = text[i].code
+            dest[p++] = c.toByte()
+            dest[p++] = (c ushr 8).toByte()
+        }
+        return p - offset
+    }
+}
@@ -0,0 +1,116 @@
+package top.jessi.jhelper.enigma
+
+import android.util.LruCache
+import java.io.InputStream
+import java.nio.ByteBuffer
+import javax.crypto.Mac
+import javax.crypto.spec.SecretKeySpec
+
+/**
+ * Created by Jessi on 2026/10/19 23:55
+ * Email：17324719944@189.cn
+ * Describe：按线程、按密钥复用的 Mac 实例
+ *
+ * Mac.init 需要做密钥填充与内外层哈希的预计算，每个线程按"算法 + 密钥"缓存已初始化的实例，
+ * doFinal 之后实例自动回到初始化后的状态，同一密钥的后续计算直接 update。
+ */
+internal object MacPool {
+
+    private const val CACHE_SIZE = 8
+    private const val STREAM_BUFFER_SIZE = 16 * 1024
+
+    /* 缓存键：算法 + 密钥内容（ByteBuffer 按内容比较） */
+    private data class Key(val algorithm: String, val key: ByteBuffer)
+
+    private class Scratch {
+        val macs = LruCache<Key, Mac>(CACHE_SIZE)
+        var output = ByteArray(64)
+        val buffer = ByteArray(STREAM_BUFFER_SIZE)
+    }
+
+    private val scratch = object : ThreadLocal<Scratch>() {
+        override fun initialValue() = Scratch()
+    }
+
+    /**
+     * 获取当前线程已初始化的 Mac 实例
+     */
+    fun get(algorithm: String, key: ByteArray): Mac {
+        val macs = scratch.get()!!.macs
+        val cacheKey = Key(algorithm, ByteBuffer.wrap(key))
+        macs.get(cacheKey)?.let { return it }
+        val mac = Mac.getInstance(algorithm)
+        mac.init(SecretKeySpec(key, algorithm))
+        // 复制密钥，避免调用方修改数组后缓存键失效
+        macs.put(Key(algorithm, ByteBuffer.wrap(key.copyOf())), mac)
+        return mac
+    }
+
+    /**
+     * 计算字节数组的 MAC，结果写入线程内复用的缓冲区
+     *
+     * @return 结果长度，结果位于 [output] 的前若干字节
+     */
+    fun compute(algorithm: String, key: ByteArray, data: ByteArray, offset: Int, length: Int): Int {
+        val mac = get(algorithm, key)
+        mac.update(data, offset, length)
+        return finish(mac)
+    }
+
+    /**
+     * 计算 ByteBuffer 剩余字节的 MAC，不改变其 position
+     */
+    fun compute(algorithm: String, key: ByteArray, data: ByteBuffer): Int {
+        val mac = get(algorithm, key)
+        mac.update(data.duplicate())
+        return finish(mac)
+    }
+
+    /**
+     * 计算字符串 UTF-8 编码后的 MAC
+     */
+    fun compute(algorithm: String, key: ByteArray, text: CharSequence): Int {
+        val mac = get(algorithm, key)
+        val buffer = scratch.get()!!.buffer
+        val chunk = buffer.size / 3
+        var start = 0
+        while (start < text.length) {
+            var end = minOf(start + chunk, text.length)
+            // 不拆开代理对
+            if (end < text.length && Character.isHighSurrogate(text[end - 1])) end--
+            mac.update(buffer, 0, Utf8.encode(text, start, end, buffer, 0))
+            start = end
+        }
+        return finish(mac)
+    }
+
+    /**
+     * 计算输入流全部内容的 MAC，不会关闭输入流
+     */
+    fun compute(algorithm: String, key: ByteArray, input: InputStream): Int {
+        val mac = get(algorithm, key)
+        val buffer = scratch.get()!!.buffer
+        try {
+            var count: Int
+            while (input.read(buffer).also { count = it } != -1) mac.update(buffer, 0, count)
+        } catch (e: Exception) {
+            // 中途失败时清除已输入的数据，保证实例可继续复用
+            mac.reset()
+            throw e
+        }
+        return finish(mac)
+    }
+
+    /**
+     * 当前线程的结果缓冲区，内容在下一次计算前有效
+     */
+    val output: ByteArray get() = scratch.get()!!.output
+
+    private fun finish(mac: Mac): Int {
+        val current = scratch.get()!!
+        val length = mac.macLength
+        if (length > current.output.size) current.output = ByteArray(length)
+        mac.doFinal(current.output, 0)
+        return length
+    }
+}
@@ -0,0 +1,279 @@
+package top.jessi.jhelper.enigma
+
+import java.io.File
+import java.io.FileInputStream
+import java.io.InputStream
+import java.nio.ByteBuffer
+
+/**
+ * Created by Jessi on 2026/10/19 14:16
+ * Email：17324719944@189.cn
+ * Describe：MurmurHash3 x64 128 位非加密哈希
+ *
+ * 与 xxHash64 相比碰撞概率更低，适合大量数据去重；同样不能用于安全场景。
+ * 结果为 [h1, h2] 两个 Long，16 进制字符串按 h1、h2 的小端字节依次输出（与 Guava murmur3_128 一致）。
+ * 字符序列按 UTF-16LE 码元直接参与计算，不做 UTF-8 编码。
+ */
+class Murmur3 @JvmOverloads constructor(private val seed: Int = 0) {
+
+    private var h1 = 0L
+    private var h2 = 0L
+    private var total = 0L
+    private val memory = ByteArray(BLOCK)
+    private var memorySize = 0
+    private var chunk: ByteArray? = null
+
+    init {
+        reset()
+    }
+
+    /**
+     * 重置为初始状态，实例可重复使用
+     */
+    fun reset(): Murmur3 {
+        h1 = seed.toLong() and 0xFFFFFFFFL
+        h2 = h1
+        total = 0L
+        memorySize = 0
+        return this
+    }
+
+    fun update(bytes: ByteArray): Murmur3 = update(bytes, 0, bytes.size)
+
+    fun update(bytes: ByteArray, offset: Int, length: Int): Murmur3 {
+        total += length
+        var p = offset
+        val end = offset + length
+        if (memorySize + length < BLOCK) {
+            System.arraycopy(bytes, p, memory, memorySize, length)
+            memorySize += length
+            return this
+        }
+        if (memorySize > 0) {
+            val fill = BLOCK - memorySize
+            System.arraycopy(bytes, p, memory, memorySize, fill)
+            block(LittleEndian.getLong(memory, 0), LittleEndian.getLong(memory, 8))
+            p += fill
+            memorySize = 0
+        }
+        while (end - p >= BLOCK) {
+            block(LittleEndian.getLong(bytes, p), LittleEndian.getLong(bytes, p + 8))
+            p += BLOCK
+        }
+        if (p < end) {
+            System.arraycopy(bytes, p, memory, 0, end - p)
+            memorySize = end - p
+        }
+        return this
+    }
+
+    /**
+     * 送入 ByteBuffer 的剩余字节，不改变其 position
+     */
+    fun update(buffer: ByteBuffer): Murmur3 {
+        if (buffer.hasArray()) {
+            return update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining())
+        }
+        val source = buffer.duplicate()
+        val chunk = chunk()
+        while (source.hasRemaining()) {
+            val count = minOf(chunk.size, source.remaining())
+            source.get(chunk, 0, count)
+            update(chunk, 0, count)
+        }
+        return this
+    }
+
+    /**
+     * 送入字符序列（按 UTF-16LE 码元）
+     */
+    @JvmOverloads
+    fun update(text: CharSequence, start: Int = 0, end: Int = text.length): Murmur3 {
+        val chunk = chunk()
+        val chunkChars = chunk.size / 2
+        var i = start
+        while (i < end) {
+            val next = minOf(i + chunkChars, end)
+            update(chunk, 0, LittleEndian.putChars(text, i, next, chunk, 0))
+            i = next
+        }
+        return this
+    }
+
+    /**
+     * 送入输入流的全部内容，不会关闭输入流
+     */
+    fun update(input: InputStream): Murmur3 {
+        val chunk = chunk()
+        var count: Int
+        while (input.read(chunk).also { count = it } != -1) update(chunk, 0, count)
+        return this
+    }
+
+    /**
+     * 当前已送入数据的哈希值 [h1, h2]，不改变状态，可继续 update
+     */
+    fun getValue(): LongArray {
+        var k1 = 0L
+        var k2 = 0L
+        for (i in memorySize - 1 downTo 0) {
+            val b = memory[i].toLong() and 0xFF
+            if (i >= 8) k2 = k2 or (b shl ((i - 8) * 8)) else k1 = k1 or (b shl (i * 8))
+        }
+        return finish(h1, h2, k1, k2, memorySize, total)
+    }
+
+    /**
+     * 当前已送入数据的哈希值，32 位 16 进制小写字符串
+     */
+    fun getHex(): String = toHex(getValue())
+
+    private fun block(k1: Long, k2: Long) {
+        h1 = mixH1(h1, h2, k1)
+        h2 = mixH2(h1, h2, k2)
+    }
+
+    private fun chunk(): ByteArray = chunk ?: ByteArray(CHUNK_SIZE).also { chunk = it }
+
+    companion object {
+
+        private const val C1 = -8663945395140668459L
+        private const val C2 = 5545529020109919103L
+        private const val F1 = -49064778989728563L
+        private const val F2 = -4265267296055464877L
+        private const val BLOCK = 16
+        private const val CHUNK_SIZE = 64 * 1024
+
+        @JvmStatic
+        @JvmOverloads
+        fun hash128(bytes: ByteArray, seed: Int = 0): LongArray = hash128(bytes, 0, bytes.size, seed)
+
+        @JvmStatic
+        @JvmOverloads
+        fun hash128(bytes: ByteArray, offset: Int, length: Int, seed: Int = 0): LongArray {
+            var h1 = seed.toLong() and 0xFFFFFFFFL
+            var h2 = h1
+            var p = offset
+            val end = offset + length
+            while (end - p >= BLOCK) {
+                h1 = mixH1(h1, h2, LittleEndian.getLong(bytes, p))
+                h2 = mixH2(h1, h2, LittleEndian.getLong(bytes, p + 8))
+                p += BLOCK
+            }
+            var k1 = 0L
+            var k2 = 0L
+            for (i in end - p - 1 downTo 0) {
+                val b = bytes[p + i].toLong() and 0xFF
+                if (i >= 8) k2 = k2 or (b shl ((i - 8) * 8)) else k1 = k1 or (b shl (i * 8))
+            }
+            return finish(h1, h2, k1, k2, end - p, length.toLong())
+        }
+
+        /**
+         * 计算 ByteBuffer 剩余字节的哈希，不改变其 position
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun hash128(buffer: ByteBuffer, seed: Int = 0): LongArray {
+            if (buffer.hasArray()) {
+                return hash128(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), seed)
+            }
+            return Murmur3(seed).update(buffer).getValue()
+        }
+
+        /**
+         * 计算字符序列的哈希（按 UTF-16LE 码元，不做编码、不分配中间数组）
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun hash128(text: CharSequence, seed: Int = 0): LongArray {
+            var h1 = seed.toLong() and 0xFFFFFFFFL
+            var h2 = h1
+            val length = text.length
+            var i = 0
+            while (length - i >= BLOCK / 2) {
+                h1 = mixH1(h1, h2, LittleEndian.getLong(text, i))
+                h2 = mixH2(h1, h2, LittleEndian.getLong(text, i + 4))
+                i += BLOCK / 2
+            }
+            val tail = (length - i) * 2
+            val base = i * 2
+            var k1 = 0L
+            var k2 = 0L
+            for (j in tail - 1 downTo 0) {
+                val b = LittleEndian.getByte(text, base + j).toLong()
+                if (j >= 8) k2 = k2 or (b shl ((j - 8) * 8)) else k1 = k1 or (b shl (j * 8))
+            }
+            return finish(h1, h2, k1, k2, tail, length * 2L)
+        }
+
+        /**
+         * 计算输入流全部内容的哈希，不会关闭输入流
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun hash128(input: InputStream, seed: Int = 0): LongArray = Murmur3(seed).update(input).getValue()
+
+        /**
+         * 计算文件内容的哈希
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun hash128(file: File, seed: Int = 0): LongArray = FileInputStream(file).use { hash128(it, seed) }
+
+        /**
+         * 哈希值转 32 位 16 进制小写字符串
+         */
+        @JvmStatic
+        fun toHex(value: LongArray): String {
+            val bytes = ByteArray(BLOCK)
+            for (i in 0 until 8) {
+                bytes[i] = (value[0] ushr (i * 8)).toByte()
+                bytes[i + 8] = (value[1] ushr (i * 8)).toByte()
+            }
+            return Hex.encode(bytes)
+        }
+
+        private fun mixH1(h1: Long, h2: Long, k1: Long): Long {
+            var h = h1 xor mixK1(k1)
+            h = java.lang.Long.rotateLeft(h, 27) + h2
+            return h * 5 + 0x52dce729
+        }
+
+        private fun mixH2(h1: Long, h2: Long, k2: Long): Long {
+            var h = h2 xor mixK2(k2)
+            h = java.lang.Long.rotateLeft(h, 31) + h1
+            return h * 5 + 0x38495ab5
+        }
+
+        private fun mixK1(k1: Long): Long = java.lang.Long.rotateLeft(k1 * C1, 31) * C2
+
+        private fun mixK2(k2: Long): Long = java.lang.Long.rotateLeft(k2 * C2, 33) * C1
+
+        /**
+         * 处理尾部（不足 16 字节的部分已按小端装入 k1 / k2）并做最终混合
+         */
+        private fun finish(h1: Long, h2: Long, k1: Long, k2: Long, tail: Int, length: Long): LongArray {
+            var a = h1
+            var b = h2
+            if (tail > 8) b = b xor mixK2(k2)
+            if (tail > 0) a = a xor mixK1(k1)
+            a = a xor length
+            b = b xor length
+            a += b
+            b += a
+            a = fmix(a)
+            b = fmix(b)
+            a += b
+            b += a
+            return longArrayOf(a, b)
+        }
+
+        private fun fmix(value: Long): Long {
+            var k = value
+            k = (k xor (k ushr 33)) * F1
+            k = (k xor (k ushr 33)) * F2
+            return k xor (k ushr 33)
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package top.jessi.jhelper.enigma
+
+import android.content.Context
+import android.os.Build
+import android.security.keystore.KeyGenParameterSpec
+import android.security.keystore.KeyProperties
+import android.util.Base64
+import android.util.Log
+import androidx.annotation.RequiresApi
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.nio.charset.StandardCharsets
+import java.security.KeyStore
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicBoolean
+import javax.crypto.Cipher
+import javax.crypto.KeyGenerator
+import javax.crypto.SecretKey
+import javax.crypto.spec.GCMParameterSpec
+
+/**
+ * Created by Jessi on 2026/10/19 23:30
+ * Email：17324719944@189.cn
+ * Describe：后台预生成的 RSA 密钥对池
+ *
+ * 低端设备上生成 2048/4096 位密钥对需要数百毫秒到数秒，密钥池在 [Dispatchers.Default] 上
+ * 提前生成并补足到指定深度，[take] 与 [Enigma.createRsaKey] 可立即取得密钥对。
+ * 开启持久化（Android 6.0+）后，备用密钥对以 Android Keystore 中的 AES-GCM 密钥加密保存，
+ * 冷启动后无需等待生成即可取用；取出的密钥对在返回前先追加到磁盘上的取出记录（只写一行公钥摘要，不涉及 Keystore），
+ * 即使进程随后被杀，重启后也不会被再次分发，之后再在后台重写密钥文件。
+ *
+ * 使用示例：
+ * ```
+ * // Application.onCreate
+ * RsaKeyPool.start(this, keySize = 2048, depth = 2, persist = true)
+ * // 需要时
+ * val keys = RsaKeyPool.take()
+ * ```
+ */
+object RsaKeyPool {
+
+    private const val TAG = "JHelper-RsaKeyPool"
+    private const val PERSIST_FILE = "jhelper_rsa_pool"
+    private const val KEYSTORE = "AndroidKeyStore"
+    private const val KEY_ALIAS = "jhelper_rsa_pool"
+    private const val VERSION = "v1"
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    private val keys = ConcurrentLinkedQueue<Map<String, String>>()
+    private val filling = AtomicBoolean(false)
+
+    @Volatile
+    private var keySize = 0
+
+    @Volatile
+    private var depth = 0
+
+    @Volatile
+    private var persistFile: File? = null
+
+    // 磁盘上的备用密钥对是否已读入，仅在 synchronized(this) 内访问，保证只读取一次
+    private var loaded = false
+
+    /**
+     * 启动密钥池，在后台补足到指定深度
+     *
+     * @param context 上下文
+     * @param keySize 密钥长度
+     * @param depth 池中保持的备用密钥对数量
+     * @param persist 是否将备用密钥对加密保存到磁盘（仅 Android 6.0+ 生效）
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun start(context: Context, keySize: Int = 2048, depth: Int = 2, persist: Boolean = false) {
+        synchronized(this) {
+            if (this.keySize != keySize) {
+                keys.clear()
+                loaded = false
+            }
+            this.keySize = keySize
+            this.depth = depth.coerceAtLeast(0)
+            val file = if (persist && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                File(context.filesDir, PERSIST_FILE)
+            } else {
+                null
+            }
+            if (file != persistFile) loaded = false
+            persistFile = file
+        }
+        scope.launch {
+            load()
+            refill()
+        }
+    }
+
+    /**
+     * 停止补充并清空池（包括磁盘上的备用密钥对）
+     */
+    @JvmStatic
+    fun stop() {
+        synchronized(this) {
+            depth = 0
+            keys.clear()
+            persistFile?.let {
+                it.delete()
+                takenFile(it).delete()
+            }
+            persistFile = null
+            loaded = false
+        }
+    }
+
+    /**
+     * 取出一个密钥对，池为空时在当前线程同步生成
+     *
+     * @return 公钥和私钥，键与 [Enigma.createRsaKey] 一致
+     */
+    @JvmStatic
+    fun take(): Map<String, String> {
+        val size = keySize.takeIf { it > 0 } ?: 2048
+        return poll(size) ?: Enigma.generateRsaKey(size)
+    }
+
+    /**
+     * 当前可立即取用的密钥对数量
+     */
+    @JvmStatic
+    fun available(): Int = keys.size
+
+    /**
+     * 取出指定长度的备用密钥对，没有时返回 null，并触发后台补充
+     */
+    internal fun poll(keySize: Int): Map<String, String>? {
+        if (keySize != this.keySize) return null
+        val key = keys.poll()
+        if (key != null) {
+            // 返回前先记录取出，保证已分发的密钥对不会在重启后被再次取出
+            markTaken(key)
+            // 重写密钥文件涉及 Keystore 与重新加密，放到后台进行；写入由 save 内部的锁串行化
+            scope.launch { save() }
+            refill()
+        }
+        return key
+    }
+
+    /* ========================= 内部实现 ========================= */
+
+    private fun refill() {
+        if (keys.size >= depth || !filling.compareAndSet(false, true)) return
+        scope.launch {
+            try {
+                while (keys.size < depth) {
+                    val size = keySize
+                    val key = Enigma.generateRsaKey(size)
+                    // 生成期间配置可能已变更
+                    if (size != keySize) continue
+                    keys.add(key)
+                    save()
+                }
+            } catch (e: Exception) {
+                Log.w(TAG, "generate rsa key failed", e)
+            } finally {
+                filling.set(false)
+            }
+            if (keys.size < depth) refill()
+        }
+    }
+
+    private fun save() {
+        val file = persistFile ?: return
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return
+        synchronized(this) {
+            val tempFile = File("${file.absolutePath}.tmp")
+            try {
+                val secretKey = storeKey()
+                tempFile.bufferedWriter().use { writer ->
+                    writer.write("$VERSION\t$keySize\n")
+                    for (key in keys) {
+                        val plain = "${key["publicKey"]}\n${key["privateKey"]}".toByteArray(StandardCharsets.UTF_8)
+                        val cipher = Cipher.getInstance("AES/GCM/NoPadding")
+                        cipher.init(Cipher.ENCRYPT_MODE, secretKey)
+                        val iv = Base64.encodeToString(cipher.iv, Base64.NO_WRAP)
+                        val data = Base64.encodeToString(cipher.doFinal(plain), Base64.NO_WRAP)
+                        writer.write("$iv\t$data\n")
+                    }
+                }
+                if (!tempFile.renameTo(file)) {
+                    file.delete()
+                    tempFile.renameTo(file)
+                }
+                // 新文件已不含被取出的密钥对，取出记录随之失效
+                if (!tempFile.exists()) takenFile(file).delete()
+            } catch (e: Exception) {
+                Log.w(TAG, "save rsa key pool failed", e)
+                tempFile.delete()
+            }
+        }
+    }
+
+    private fun load() {
+        val file = persistFile ?: return
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return
+        synchronized(this) {
+            // 检查与读取在同一把锁内，多次 start 不会重复读入同一批密钥对
+            if (loaded) return
+            loaded = true
+            if (!file.exists()) return
+            try {
+                val lines = file.readLines()
+                val header = lines.firstOrNull()?.split('\t')
+                if (header == null || header.size != 2 || header[0] != VERSION || header[1].toIntOrNull() != keySize) {
+                    file.delete()
+                    takenFile(file).delete()
+                    return
+                }
+                val taken = takenFile(file).let { if (it.exists()) it.readLines().toHashSet() else emptySet() }
+                val secretKey = storeKey()
+                for (line in lines.drop(1)) {
+                    val parts = line.split('\t')
+                    if (parts.size != 2) continue
+                    val cipher = Cipher.getInstance("AES/GCM/NoPadding")
+                    val iv = Base64.decode(parts[0], Base64.NO_WRAP)
+                    cipher.init(Cipher.DECRYPT_MODE, secretKey, GCMParameterSpec(128, iv))
+                    val plain = String(cipher.doFinal(Base64.decode(parts[1], Base64.NO_WRAP)), StandardCharsets.UTF_8)
+                    val pair = plain.split('\n')
+                    if (pair.size != 2 || Enigma.sha256(pair[0]) in taken) continue
+                    keys.add(mapOf("publicKey" to pair[0], "privateKey" to pair[1]))
+                }
+            } catch (e: Exception) {
+                // Keystore 密钥丢失（如清除锁屏凭据）时无法解密，丢弃备用密钥对
+                Log.w(TAG, "load rsa key pool failed", e)
+                keys.clear()
+                file.delete()
+                takenFile(file).delete()
+            }
+        }
+    }
+
+    /**
+     * 记录已取出的密钥对（公钥的 SHA-256），读取时跳过；
+     * 与 save 共用同一把锁，save 重写完成后才会清空记录，不会丢失并发取出的标记
+     */
+    private fun markTaken(key: Map<String, String>) {
+        val file = persistFile ?: return
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return
+        synchronized(this) {
+            try {
+                FileOutputStream(takenFile(file), true).use {
+                    it.write("${Enigma.sha256(key["publicKey"] ?: "")}\n".toByteArray(StandardCharsets.UTF_8))
+                }
+            } catch (e: IOException) {
+                // 无法追加记录时退回同步重写密钥文件
+                Log.w(TAG, "mark rsa key taken failed", e)
+                save()
+            }
+        }
+    }
+
+    private fun takenFile(file: File): File = File("${file.absolutePath}.taken")
+
+    /**
+     * 获取或创建 Android Keystore 中用于加密备用密钥对的 AES 密钥
+     */
+    @RequiresApi(Build.VERSION_CODES.M)
+    private fun storeKey(): SecretKey {
+        val keyStore = KeyStore.getInstance(KEYSTORE)
+        keyStore.load(null)
+        (keyStore.getKey(KEY_ALIAS, null) as? SecretKey)?.let { return it }
+        val generator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE)
+        generator.init(
+            KeyGenParameterSpec.Builder(KEY_ALIAS, KeyProperties.PURPOSE_ENCRYPT or KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .setKeySize(256)
+                .build()
+        )
+        return generator.generateKey()
+    }
+}
@@ -0,0 +1,455 @@
+package top.jessi.jhelper.enigma
+
+import android.os.CancellationSignal
+import android.os.OperationCanceledException
+import top.jessi.jhelper.file.Zip
+import java.io.Closeable
+import java.io.EOFException
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.security.GeneralSecurityException
+import java.security.SecureRandom
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicLong
+import javax.crypto.Cipher
+import javax.crypto.Mac
+import javax.crypto.spec.GCMParameterSpec
+import javax.crypto.spec.SecretKeySpec
+
+/**
+ * Created by Jessi on 2026/10/19 22:10
+ * Email：17324719944@189.cn
+ * Describe：分段认证加密（AES-GCM）文件格式
+ *
+ * 明文按固定大小切分为若干段，每段独立使用 AES-GCM 加密并附带 16 字节认证标签，
+ * 因此各段可以在多个线程中并行加解密，也可以只解密任意字节范围（如在加密视频中拖动进度）。
+ *
+ * 文件格式：
+ * ```
+ * 头部（32 字节）：magic "JHSG"(4) | 版本(1) | 段大小(4，大端) | salt(16) | nonce 前缀(7)
+ * 之后依次为各段：密文(段大小，最后一段可以更短) | 认证标签(16)
+ * ```
+ * - 每个文件由主密钥与随机 salt 经 HKDF-SHA256 派生独立的文件密钥，同一主密钥可安全加密任意多个文件
+ * - 第 i 段的 nonce = nonce 前缀(7) | i(4，大端) | 末段标记(1)，段的重排、删除或截断都会导致认证失败
+ * - 头部作为每段的附加认证数据（AAD），头部被篡改同样会导致认证失败
+ */
+object SegmentedAead {
+
+    /** 默认段大小 1MB */
+    const val DEFAULT_SEGMENT_SIZE = 1 shl 20
+
+    private const val MIN_SEGMENT_SIZE = 1024
+    private const val MAX_SEGMENT_SIZE = 64 shl 20
+    private const val MAGIC = 0x4A485347 // "JHSG"
+    private const val VERSION: Byte = 1
+    private const val HEADER_SIZE = 32
+    private const val SALT_SIZE = 16
+    private const val NONCE_PREFIX_SIZE = 7
+    private const val NONCE_SIZE = 12
+    private const val TAG_SIZE = 16
+    private const val TRANSFORMATION = "AES/GCM/NoPadding"
+
+    private val random = SecureRandom()
+
+    // GCM 每段都要以新的 nonce 重新 init，只复用 Cipher 实例本身
+    private val ciphers = object : ThreadLocal<Cipher>() {
+        override fun initialValue(): Cipher = Cipher.getInstance(TRANSFORMATION)
+    }
+
+    /**
+     * 文件头部及派生出的文件密钥
+     */
+    private class Header(val bytes: ByteArray, masterKey: ByteArray) {
+        val segmentSize: Int
+        val noncePrefix: ByteArray
+        val key: SecretKeySpec
+
+        init {
+            val buffer = ByteBuffer.wrap(bytes)
+            if (buffer.getInt(0) != MAGIC) throw IOException("Not a segmented AEAD file")
+            if (bytes[4] != VERSION) throw IOException("Unsupported version: ${bytes[4]}")
+            segmentSize = buffer.getInt(5)
+            if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > MAX_SEGMENT_SIZE) {
+                throw IOException("Invalid segment size: $segmentSize")
+            }
+            val salt = bytes.copyOfRange(9, 9 + SALT_SIZE)
+            noncePrefix = bytes.copyOfRange(9 + SALT_SIZE, HEADER_SIZE)
+            key = SecretKeySpec(deriveKey(masterKey, salt, bytes.copyOfRange(0, 9)), "AES")
+        }
+
+        /** 密文中一段的长度 */
+        val cipherSegmentSize: Int get() = segmentSize + TAG_SIZE
+    }
+
+    /* ========================= 文件加解密 ========================= */
+
+    /**
+     * 并行加密文件，先写入临时文件，成功后再重命名为目标文件
+     *
+     * @param src 明文文件
+     * @param dst 密文文件
+     * @param key 主密钥，16/24/32 字节
+     * @param segmentSize 段大小（1KB ~ 64MB），随机访问时每次至少解密一段
+     * @param threads 并行线程数
+     * @param signal 取消信号，可为 null，取消时抛出 [OperationCanceledException]
+     * @param listener 进度回调（在工作线程上回调），可为 null
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun encryptFile(
+        src: File, dst: File, key: ByteArray, segmentSize: Int = DEFAULT_SEGMENT_SIZE,
+        threads: Int = Runtime.getRuntime().availableProcessors(),
+        signal: CancellationSignal? = null, listener: Zip.ProgressListener? = null
+    ) {
+        checkKey(key)
+        require(segmentSize in MIN_SEGMENT_SIZE..MAX_SEGMENT_SIZE) { "Invalid segment size: $segmentSize" }
+        val headerBytes = ByteArray(HEADER_SIZE)
+        ByteBuffer.wrap(headerBytes).putInt(MAGIC).put(VERSION).putInt(segmentSize)
+        val randomBytes = ByteArray(SALT_SIZE + NONCE_PREFIX_SIZE)
+        random.nextBytes(randomBytes)
+        System.arraycopy(randomBytes, 0, headerBytes, 9, randomBytes.size)
+        val header = Header(headerBytes, key)
+
+        writeAtomically(dst) { temp ->
+            FileInputStream(src).use { input ->
+                FileOutputStream(temp).use { output ->
+                    val inChannel = input.channel
+                    val outChannel = output.channel
+                    writeFully(outChannel, ByteBuffer.wrap(headerBytes), 0)
+                    val plainSize = inChannel.size()
+                    val count = maxOf(1L, (plainSize + segmentSize - 1) / segmentSize)
+                    checkSegmentCount(count)
+                    val done = AtomicLong()
+                    runParallel(count, threads, signal) { nextIndex ->
+                        val plain = ByteArray(segmentSize)
+                        val sealed = ByteArray(header.cipherSegmentSize)
+                        while (true) {
+                            val index = nextIndex()
+                            if (index < 0) break
+                            val position = index * segmentSize
+                            val length = minOf(segmentSize.toLong(), plainSize - position).toInt()
+                            readFully(inChannel, ByteBuffer.wrap(plain, 0, length), position)
+                            val sealedLength = crypt(
+                                Cipher.ENCRYPT_MODE, header, index, index == count - 1,
+                                plain, length, sealed
+                            )
+                            writeFully(
+                                outChannel, ByteBuffer.wrap(sealed, 0, sealedLength),
+                                HEADER_SIZE + index * header.cipherSegmentSize
+                            )
+                            report(listener, done.addAndGet(length.toLong()), plainSize)
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 并行解密文件，任何一段认证失败都会导致整体失败，目标文件保持不变
+     *
+     * @param src 密文文件
+     * @param dst 明文文件
+     * @param key 主密钥
+     * @param threads 并行线程数
+     * @param signal 取消信号，可为 null，取消时抛出 [OperationCanceledException]
+     * @param listener 进度回调（在工作线程上回调），可为 null
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun decryptFile(
+        src: File, dst: File, key: ByteArray,
+        threads: Int = Runtime.getRuntime().availableProcessors(),
+        signal: CancellationSignal? = null, listener: Zip.ProgressListener? = null
+    ) {
+        checkKey(key)
+        writeAtomically(dst) { temp ->
+            FileInputStream(src).use { input ->
+                FileOutputStream(temp).use { output ->
+                    val inChannel = input.channel
+                    val outChannel = output.channel
+                    val header = readHeader(inChannel, key)
+                    val layout = Layout(header, inChannel.size())
+                    val done = AtomicLong()
+                    runParallel(layout.count, threads, signal) { nextIndex ->
+                        val sealed = ByteArray(header.cipherSegmentSize)
+                        val plain = ByteArray(header.segmentSize)
+                        while (true) {
+                            val index = nextIndex()
+                            if (index < 0) break
+                            val length = layout.plainLength(index)
+                            readFully(
+                                inChannel, ByteBuffer.wrap(sealed, 0, length + TAG_SIZE),
+                                HEADER_SIZE + index * header.cipherSegmentSize
+                            )
+                            crypt(
+                                Cipher.DECRYPT_MODE, header, index, index == layout.count - 1,
+                                sealed, length + TAG_SIZE, plain
+                            )
+                            writeFully(outChannel, ByteBuffer.wrap(plain, 0, length), index * header.segmentSize)
+                            report(listener, done.addAndGet(length.toLong()), layout.plainSize)
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 打开加密文件用于随机访问解密
+     *
+     * @param file 密文文件
+     * @param key 主密钥
+     */
+    @JvmStatic
+    fun open(file: File, key: ByteArray): Reader {
+        checkKey(key)
+        return Reader(file, key)
+    }
+
+    /**
+     * 随机访问读取器，只解密所需的段，并缓存最近一次解密的段；线程安全
+     */
+    class Reader internal constructor(file: File, key: ByteArray) : Closeable {
+        private val input = FileInputStream(file)
+        private val channel = input.channel
+        private val header: Header
+        private val layout: Layout
+        private val sealed: ByteArray
+        private val plain: ByteArray
+        private var cachedIndex = -1L
+        private var cachedLength = 0
+
+        init {
+            try {
+                header = readHeader(channel, key)
+                layout = Layout(header, channel.size())
+            } catch (e: Exception) {
+                input.close()
+                throw e
+            }
+            sealed = ByteArray(header.cipherSegmentSize)
+            plain = ByteArray(header.segmentSize)
+        }
+
+        /** 明文总长度 */
+        val size: Long get() = layout.plainSize
+
+        /**
+         * 从明文的 position 处读取最多 length 字节
+         *
+         * @return 实际读取的字节数，position 超出末尾时返回 -1
+         * @throws GeneralSecurityException 涉及的段认证失败
+         */
+        @Synchronized
+        fun read(position: Long, buffer: ByteArray, offset: Int, length: Int): Int {
+            require(position >= 0) { "Negative position: $position" }
+            if (position >= layout.plainSize) return -1
+            val end = minOf(layout.plainSize, position + length)
+            var current = position
+            var written = offset
+            while (current < end) {
+                val index = current / header.segmentSize
+                load(index)
+                val inSegment = (current - index * header.segmentSize).toInt()
+                val count = minOf((end - current).toInt(), cachedLength - inSegment)
+                System.arraycopy(plain, inSegment, buffer, written, count)
+                current += count
+                written += count
+            }
+            return (end - position).toInt()
+        }
+
+        /**
+         * 读取明文的 [position, position + length) 范围，超出末尾的部分会被截去
+         */
+        fun readRange(position: Long, length: Int): ByteArray {
+            if (position >= size) return ByteArray(0)
+            val result = ByteArray(minOf(length.toLong(), size - position).toInt())
+            var done = 0
+            while (done < result.size) {
+                val count = read(position + done, result, done, result.size - done)
+                if (count <= 0) break
+                done += count
+            }
+            return result
+        }
+
+        override fun close() {
+            input.close()
+        }
+
+        private fun load(index: Long) {
+            if (index == cachedIndex) return
+            // 解密失败时不保留旧段，避免返回错误数据
+            cachedIndex = -1
+            val length = layout.plainLength(index)
+            readFully(
+                channel, ByteBuffer.wrap(sealed, 0, length + TAG_SIZE),
+                HEADER_SIZE + index * header.cipherSegmentSize
+            )
+            crypt(Cipher.DECRYPT_MODE, header, index, index == layout.count - 1, sealed, length + TAG_SIZE, plain)
+            cachedIndex = index
+            cachedLength = length
+        }
+    }
+
+    /* ========================= 内部实现 ========================= */
+
+    /**
+     * 根据密文长度推算段数与明文长度
+     */
+    private class Layout(header: Header, fileSize: Long) {
+        private val segmentSize = header.segmentSize
+        val count: Long
+        val plainSize: Long
+
+        init {
+            val body = fileSize - HEADER_SIZE
+            if (body < TAG_SIZE) throw IOException("Truncated segmented AEAD file")
+            count = (body + header.cipherSegmentSize - 1) / header.cipherSegmentSize
+            checkSegmentCount(count)
+            val lastCipher = body - (count - 1) * header.cipherSegmentSize
+            // 只有空文件才允许出现长度为 0 的末段
+            if (lastCipher < TAG_SIZE || (lastCipher == TAG_SIZE.toLong() && count > 1)) {
+                throw IOException("Invalid segmented AEAD file length")
+            }
+            plainSize = body - count * TAG_SIZE
+        }
+
+        fun plainLength(index: Long): Int = minOf(segmentSize.toLong(), plainSize - index * segmentSize).toInt()
+    }
+
+    /**
+     * 加密或解密一段
+     *
+     * @return 输出长度
+     */
+    private fun crypt(
+        mode: Int, header: Header, index: Long, last: Boolean,
+        input: ByteArray, length: Int, output: ByteArray
+    ): Int {
+        val nonce = ByteArray(NONCE_SIZE)
+        System.arraycopy(header.noncePrefix, 0, nonce, 0, NONCE_PREFIX_SIZE)
+        ByteBuffer.wrap(nonce, NONCE_PREFIX_SIZE, 4).putInt(index.toInt())
+        nonce[NONCE_SIZE - 1] = if (last) 1 else 0
+        val cipher = ciphers.get()!!
+        try {
+            cipher.init(mode, header.key, GCMParameterSpec(TAG_SIZE * 8, nonce))
+            cipher.updateAAD(header.bytes)
+            return cipher.doFinal(input, 0, length, output, 0)
+        } catch (e: GeneralSecurityException) {
+            // 认证失败后 Cipher 状态不确定，丢弃当前线程的实例
+            ciphers.remove()
+            throw e
+        }
+    }
+
+    /**
+     * HKDF-SHA256 派生文件密钥，长度与主密钥相同
+     */
+    private fun deriveKey(masterKey: ByteArray, salt: ByteArray, info: ByteArray): ByteArray {
+        val mac = Mac.getInstance("HmacSHA256")
+        mac.init(SecretKeySpec(salt, "HmacSHA256"))
+        val prk = mac.doFinal(masterKey)
+        mac.init(SecretKeySpec(prk, "HmacSHA256"))
+        mac.update(info)
+        mac.update(1)
+        return mac.doFinal().copyOf(masterKey.size)
+    }
+
+    private fun readHeader(channel: FileChannel, key: ByteArray): Header {
+        if (channel.size() < HEADER_SIZE) throw IOException("Truncated segmented AEAD file")
+        val bytes = ByteArray(HEADER_SIZE)
+        readFully(channel, ByteBuffer.wrap(bytes), 0)
+        return Header(bytes, key)
+    }
+
+    /**
+     * 多个线程共同领取段序号执行 worker，nextIndex 在全部领完或已取消时返回 -1
+     */
+    private fun runParallel(
+        count: Long, threads: Int, signal: CancellationSignal?,
+        worker: (nextIndex: () -> Long) -> Unit
+    ) {
+        val counter = AtomicLong()
+        val nextIndex = {
+            if (signal?.isCanceled == true) throw OperationCanceledException()
+            val index = counter.getAndIncrement()
+            if (index < count) index else -1L
+        }
+        val workers = minOf(threads.coerceAtLeast(1).toLong(), count).toInt()
+        if (workers <= 1) {
+            worker(nextIndex)
+            return
+        }
+        val pool = Executors.newFixedThreadPool(workers)
+        try {
+            val futures = ArrayList<Future<*>>(workers)
+            repeat(workers) { futures.add(pool.submit(Runnable { worker(nextIndex) })) }
+            for (future in futures) {
+                try {
+                    future.get()
+                } catch (e: InterruptedException) {
+                    Thread.currentThread().interrupt()
+                    throw IOException("Interrupted while processing segments", e)
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+            }
+        } finally {
+            pool.shutdownNow()
+        }
+    }
+
+    /**
+     * 先写临时文件，成功后重命名为目标文件，失败时删除临时文件
+     */
+    private inline fun writeAtomically(dst: File, block: (temp: File) -> Unit) {
+        val temp = File("${dst.absolutePath}.tmp")
+        try {
+            block(temp)
+            if (!temp.renameTo(dst)) {
+                dst.delete()
+                if (!temp.renameTo(dst)) throw IOException("Rename failed: $dst")
+            }
+        } catch (e: Throwable) {
+            temp.delete()
+            throw e
+        }
+    }
+
+    private fun report(listener: Zip.ProgressListener?, done: Long, total: Long) {
+        listener ?: return
+        synchronized(listener) { listener.onProgress(done, total) }
+    }
+
+    private fun readFully(channel: FileChannel, buffer: ByteBuffer, position: Long) {
+        var current = position
+        while (buffer.hasRemaining()) {
+            val count = channel.read(buffer, current)
+            if (count == -1) throw EOFException("Unexpected end of file")
+            current += count
+        }
+    }
+
+    private fun writeFully(channel: FileChannel, buffer: ByteBuffer, position: Long) {
+        var current = position
+        while (buffer.hasRemaining()) current += channel.write(buffer, current)
+    }
+
+    private fun checkKey(key: ByteArray) {
+        require(key.size == 16 || key.size == 24 || key.size == 32) { "The key length must be 16/24/32 bytes." }
+    }
+
+    private fun checkSegmentCount(count: Long) {
+        // 段序号在 nonce 中占 4 字节
+        if (count > 0xFFFFFFFFL) throw IOException("Too many segments")
+    }
+}
@@ -0,0 +1,67 @@
+package top.jessi.jhelper.enigma
+
+import java.security.PrivateKey
+import java.security.PublicKey
+import java.security.Signature
+
+/**
+ * Created by Jessi on 2026/10/19 23:05
+ * Email：17324719944@189.cn
+ * Describe：按线程复用的 Signature 实例
+ *
+ * 每个线程按算法缓存一个 [Signature]；sign / verify 完成后实例会回到初始化后的状态，
+ * 因此连续使用同一密钥时连 initSign / initVerify 也可以省去。
+ */
+internal object SignaturePool {
+
+    private class Holder(val signature: Signature) {
+        var key: Any? = null
+    }
+
+    private val holders = object : ThreadLocal<HashMap<String, Holder>>() {
+        override fun initialValue() = HashMap<String, Holder>()
+    }
+
+    /**
+     * 签名
+     */
+    fun sign(algorithm: String, key: PrivateKey, data: ByteArray, offset: Int = 0, length: Int = data.size): ByteArray {
+        val holder = holder(algorithm)
+        try {
+            if (holder.key !== key) {
+                holder.key = null
+                holder.signature.initSign(key)
+                holder.key = key
+            }
+            holder.signature.update(data, offset, length)
+            return holder.signature.sign()
+        } catch (e: Exception) {
+            holders.get()!!.remove(algorithm)
+            throw e
+        }
+    }
+
+    /**
+     * 验证签名，签名格式错误时返回 false
+     */
+    fun verify(algorithm: String, key: PublicKey, data: ByteArray, signature: ByteArray): Boolean {
+        val holder = holder(algorithm)
+        try {
+            if (holder.key !== key) {
+                holder.key = null
+                holder.signature.initVerify(key)
+                holder.key = key
+            }
+            holder.signature.update(data)
+            return holder.signature.verify(signature)
+        } catch (e: Exception) {
+            // 签名格式错误等异常后实例状态不确定，丢弃
+            holders.get()!!.remove(algorithm)
+            return false
+        }
+    }
+
+    private fun holder(algorithm: String): Holder {
+        return holders.get()!!.getOrPut(algorithm) { Holder(Signature.getInstance(algorithm)) }
+    }
+}
@@ -0,0 +1,47 @@
+package top.jessi.jhelper.enigma
+
+/**
+ * Created by Jessi on 2026/10/19 21:05
+ * Email：17324719944@189.cn
+ * Describe：UTF-8 编码，不成对的代理字符编码为 '?'，与 String.toByteArray(UTF_8) 一致
+ */
+internal object Utf8 {
+
+    /**
+     * 编码 text[start, end) 到 dest，调用方保证 dest 至少有 (end - start) * 3 字节空间
+     *
+     * @return 写入的字节数
+     */
+    fun encode(text: CharSequence, start: Int, end: Int, dest: ByteArray, offset: Int): Int {
+        var p = offset
+        var i = start
+        while (i < end) {
+            val c = text[i++]
+            val code = c.code
+            when {
+                code < 0x80 -> dest[p++] = code.toByte()
+                code < 0x800 -> {
+                    dest[p++] = (0xC0 or (code shr 6)).toByte()
+                    dest[p++] = (0x80 or (code and 0x3F)).toByte()
+                }
+                Character.isSurrogate(c) -> {
+                    if (Character.isHighSurrogate(c) && i < end && Character.isLowSurrogate(text[i])) {
+                        val cp = Character.toCodePoint(c, text[i++])
+                        dest[p++] = (0xF0 or (cp shr 18)).toByte()
+                        dest[p++] = (0x80 or ((cp shr 12) and 0x3F)).toByte()
+                        dest[p++] = (0x80 or ((cp shr 6) and 0x3F)).toByte()
+                        dest[p++] = (0x80 or (cp and 0x3F)).toByte()
+                    } else {
+                        dest[p++] = '?'.code.toByte()
+                    }
+                }
+                else -> {
+                    dest[p++] = (0xE0 or (code shr 12)).toByte()
+                    dest[p++] = (0x80 or ((code shr 6) and 0x3F)).toByte()
+                    dest[p++] = (0x80 or (code and 0x3F)).toByte()
+                }
+            }
+        }
+        return p - offset
+    }
+}
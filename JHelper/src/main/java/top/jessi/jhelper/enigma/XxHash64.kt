@@ -0,0 +1,311 @@
+package top.jessi.jhelper.enigma
+
+import java.io.File
+import java.io.FileInputStream
+import java.io.InputStream
+import java.nio.ByteBuffer
+
+/**
+ * Created by Jessi on 2026/10/19 14:16
+ * Email：17324719944@189.cn
+ * Describe：xxHash64 非加密哈希
+ *
+ * 速度远高于 MD5 / SHA，适合缓存键、去重、快速比较，不能用于签名、密码等安全场景。
+ * 字符序列按 UTF-16LE 码元直接参与计算（不做 UTF-8 编码），结果与 toByteArray() 后计算的值不同，
+ * 同一字符串在任何设备上结果一致。
+ *
+ * 使用示例：
+ * ```
+ * val key = XxHash64.hash("http://example.com/a.png")
+ * // 流式
+ * val hasher = XxHash64()
+ * hasher.update(header).update(body)
+ * val value = hasher.getValue()
+ * ```
+ */
+class XxHash64 @JvmOverloads constructor(private val seed: Long = 0L) {
+
+    private var v1 = 0L
+    private var v2 = 0L
+    private var v3 = 0L
+    private var v4 = 0L
+    private var total = 0L
+    private val memory = ByteArray(STRIPE)
+    private var memorySize = 0
+    private var chunk: ByteArray? = null
+
+    init {
+        reset()
+    }
+
+    /**
+     * 重置为初始状态，实例可重复使用
+     */
+    fun reset(): XxHash64 {
+        v1 = seed + P1 + P2
+        v2 = seed + P2
+        v3 = seed
+        v4 = seed - P1
+        total = 0L
+        memorySize = 0
+        return this
+    }
+
+    fun update(bytes: ByteArray): XxHash64 = update(bytes, 0, bytes.size)
+
+    fun update(bytes: ByteArray, offset: Int, length: Int): XxHash64 {
+        total += length
+        var p = offset
+        val end = offset + length
+        if (memorySize + length < STRIPE) {
+            System.arraycopy(bytes, p, memory, memorySize, length)
+            memorySize += length
+            return this
+        }
+        if (memorySize > 0) {
+            val fill = STRIPE - memorySize
+            System.arraycopy(bytes, p, memory, memorySize, fill)
+            stripe(memory, 0)
+            p += fill
+            memorySize = 0
+        }
+        while (end - p >= STRIPE) {
+            stripe(bytes, p)
+            p += STRIPE
+        }
+        if (p < end) {
+            System.arraycopy(bytes, p, memory, 0, end - p)
+            memorySize = end - p
+        }
+        return this
+    }
+
+    /**
+     * 送入 ByteBuffer 的剩余字节，不改变其 position
+     */
+    fun update(buffer: ByteBuffer): XxHash64 {
+        if (buffer.hasArray()) {
+            return update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining())
+        }
+        val source = buffer.duplicate()
+        val chunk = chunk()
+        while (source.hasRemaining()) {
+            val count = minOf(chunk.size, source.remaining())
+            source.get(chunk, 0, count)
+            update(chunk, 0, count)
+        }
+        return this
+    }
+
+    /**
+     * 送入字符序列（按 UTF-16LE 码元）
+     */
+    @JvmOverloads
+    fun update(text: CharSequence, start: Int = 0, end: Int = text.length): XxHash64 {
+        val chunk = chunk()
+        val chunkChars = chunk.size / 2
+        var i = start
+        while (i < end) {
+            val next = minOf(i + chunkChars, end)
+            update(chunk, 0, LittleEndian.putChars(text, i, next, chunk, 0))
+            i = next
+        }
+        return this
+    }
+
+    /**
+     * 送入输入流的全部内容，不会关闭输入流
+     */
+    fun update(input: InputStream): XxHash64 {
+        val chunk = chunk()
+        var count: Int
+        while (input.read(chunk).also { count = it } != -1) update(chunk, 0, count)
+        return this
+    }
+
+    /**
+     * 当前已送入数据的哈希值，不改变状态，可继续 update
+     */
+    fun getValue(): Long {
+        var h = if (total >= STRIPE) {
+            merge(rotl(v1, 1) + rotl(v2, 7) + rotl(v3, 12) + rotl(v4, 18), v1, v2, v3, v4)
+        } else {
+            seed + P5
+        }
+        h += total
+        return finish(h, memory, 0, memorySize)
+    }
+
+    private fun stripe(bytes: ByteArray, p: Int) {
+        v1 = round(v1, LittleEndian.getLong(bytes, p))
+        v2 = round(v2, LittleEndian.getLong(bytes, p + 8))
+        v3 = round(v3, LittleEndian.getLong(bytes, p + 16))
+        v4 = round(v4, LittleEndian.getLong(bytes, p + 24))
+    }
+
+    private fun chunk(): ByteArray = chunk ?: ByteArray(CHUNK_SIZE).also { chunk = it }
+
+    companion object {
+
+        private const val P1 = -7046029288634856825L
+        private const val P2 = -4417276706812531889L
+        private const val P3 = 1609587929392839161L
+        private const val P4 = -8796714831421723037L
+        private const val P5 = 2870177450012600261L
+        private const val STRIPE = 32
+        private const val CHUNK_SIZE = 64 * 1024
+
+        @JvmStatic
+        @JvmOverloads
+        fun hash(bytes: ByteArray, seed: Long = 0L): Long = hash(bytes, 0, bytes.size, seed)
+
+        @JvmStatic
+        @JvmOverloads
+        fun hash(bytes: ByteArray, offset: Int, length: Int, seed: Long = 0L): Long {
+            var p = offset
+            val end = offset + length
+            var h: Long
+            if (length >= STRIPE) {
+                var v1 = seed + P1 + P2
+                var v2 = seed + P2
+                var v3 = seed
+                var v4 = seed - P1
+                do {
+                    v1 = round(v1, LittleEndian.getLong(bytes, p))
+                    v2 = round(v2, LittleEndian.getLong(bytes, p + 8))
+                    v3 = round(v3, LittleEndian.getLong(bytes, p + 16))
+                    v4 = round(v4, LittleEndian.getLong(bytes, p + 24))
+                    p += STRIPE
+                } while (end - p >= STRIPE)
+                h = merge(rotl(v1, 1) + rotl(v2, 7) + rotl(v3, 12) + rotl(v4, 18), v1, v2, v3, v4)
+            } else {
+                h = seed + P5
+            }
+            h += length.toLong()
+            return finish(h, bytes, p, end - p)
+        }
+
+        /**
+         * 计算 ByteBuffer 剩余字节的哈希，不改变其 position
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun hash(buffer: ByteBuffer, seed: Long = 0L): Long {
+            if (buffer.hasArray()) {
+                return hash(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), seed)
+            }
+            return XxHash64(seed).update(buffer).getValue()
+        }
+
+        /**
+         * 计算字符序列的哈希（按 UTF-16LE 码元，不做编码、不分配内存）
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun hash(text: CharSequence, seed: Long = 0L): Long {
+            val length = text.length
+            var i = 0
+            var h: Long
+            if (length >= STRIPE / 2) {
+                var v1 = seed + P1 + P2
+                var v2 = seed + P2
+                var v3 = seed
+                var v4 = seed - P1
+                do {
+                    v1 = round(v1, LittleEndian.getLong(text, i))
+                    v2 = round(v2, LittleEndian.getLong(text, i + 4))
+                    v3 = round(v3, LittleEndian.getLong(text, i + 8))
+                    v4 = round(v4, LittleEndian.getLong(text, i + 12))
+                    i += STRIPE / 2
+                } while (length - i >= STRIPE / 2)
+                h = merge(rotl(v1, 1) + rotl(v2, 7) + rotl(v3, 12) + rotl(v4, 18), v1, v2, v3, v4)
+            } else {
+                h = seed + P5
+            }
+            h += length * 2L
+            while (length - i >= 4) {
+                h = h xor round(0L, LittleEndian.getLong(text, i))
+                h = rotl(h, 27) * P1 + P4
+                i += 4
+            }
+            if (length - i >= 2) {
+                h = h xor ((LittleEndian.getInt(text, i).toLong() and 0xFFFFFFFFL) * P1)
+                h = rotl(h, 23) * P2 + P3
+                i += 2
+            }
+            if (i < length) {
+                val c = text[i].code
+                h = h xor ((c and 0xFF) * P5)
+                h = rotl(h, 11) * P1
+                h = h xor ((c ushr 8) * P5)
+                h = rotl(h, 11) * P1
+            }
+            return avalanche(h)
+        }
+
+        /**
+         * 计算输入流全部内容的哈希，不会关闭输入流
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun hash(input: InputStream, seed: Long = 0L): Long = XxHash64(seed).update(input).getValue()
+
+        /**
+         * 计算文件内容的哈希
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun hash(file: File, seed: Long = 0L): Long = FileInputStream(file).use { hash(it, seed) }
+
+        /**
+         * 哈希值转 16 位 16 进制小写字符串
+         */
+        @JvmStatic
+        fun toHex(value: Long): String = Hex.encode(value)
+
+        private fun round(acc: Long, input: Long): Long = rotl(acc + input * P2, 31) * P1
+
+        private fun merge(hash: Long, v1: Long, v2: Long, v3: Long, v4: Long): Long {
+            var h = hash
+            h = (h xor round(0L, v1)) * P1 + P4
+            h = (h xor round(0L, v2)) * P1 + P4
+            h = (h xor round(0L, v3)) * P1 + P4
+            h = (h xor round(0L, v4)) * P1 + P4
+            return h
+        }
+
+        /**
+         * 处理不足一个条带的尾部字节并做最终混合
+         */
+        private fun finish(hash: Long, bytes: ByteArray, offset: Int, length: Int): Long {
+            var h = hash
+            var p = offset
+            val end = offset + length
+            while (end - p >= 8) {
+                h = h xor round(0L, LittleEndian.getLong(bytes, p))
+                h = rotl(h, 27) * P1 + P4
+                p += 8
+            }
+            if (end - p >= 4) {
+                h = h xor ((LittleEndian.getInt(bytes, p).toLong() and 0xFFFFFFFFL) * P1)
+                h = rotl(h, 23) * P2 + P3
+                p += 4
+            }
+            while (p < end) {
+                h = h xor ((bytes[p].toLong() and 0xFF) * P5)
+                h = rotl(h, 11) * P1
+                p++
+            }
+            return avalanche(h)
+        }
+
+        private fun avalanche(hash: Long): Long {
+            var h = hash
+            h = (h xor (h ushr 33)) * P2
+            h = (h xor (h ushr 29)) * P3
+            return h xor (h ushr 32)
+        }
+
+        private fun rotl(value: Long, distance: Int): Long = java.lang.Long.rotateLeft(value, distance)
+    }
+}
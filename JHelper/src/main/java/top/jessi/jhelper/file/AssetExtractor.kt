@@ -0,0 +1,291 @@
+package top.jessi.jhelper.file
+
+import android.content.Context
+import android.os.CancellationSignal
+import android.os.OperationCanceledException
+import android.util.Log
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InterruptedIOException
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.zip.CRC32
+
+/**
+ * Created by Jessi on 2026/10/19 20:15
+ * Email：17324719944@189.cn
+ * Describe：增量并行解出 assets 目录
+ *
+ * 每次解出后记录已写出文件的大小、CRC 与修改时间，下次解出时与 [AssetManifest] 中的大小、CRC 对比，
+ * 目标文件未被改动且内容未变化时跳过；需要写出的文件在线程池中同时拷贝，先写临时文件再重命名。
+ * 清单缺少 CRC（回退遍历构建）时以应用的 lastUpdateTime 判断是否变化。
+ */
+internal class AssetExtractor(
+    private val context: Context,
+    threads: Int,
+    private val signal: CancellationSignal?,
+    private val listener: Zip.ProgressListener?
+) {
+
+    companion object {
+        private const val TAG = "JHelper-AssetExtractor"
+        private const val BUFFER_SIZE = 64 * 1024
+        private const val RECORD_DIR = "jhelper_asset_extract"
+        private const val RECORD_VERSION = "v1"
+    }
+
+    /* 上次写出的文件记录 */
+    private class Record(val size: Long, val crc: Long, val lastModified: Long)
+
+    private val threads = threads.coerceAtLeast(1)
+    private val bufferPool = ArrayBlockingQueue<ByteArray>(this.threads)
+    private var recordVersion = -1L
+
+    init {
+        repeat(this.threads) { bufferPool.add(ByteArray(BUFFER_SIZE)) }
+    }
+
+    /**
+     * 解出目录
+     *
+     * @param assetDir Asset目录路径，根目录传 ""
+     * @param destDir 目标目录
+     * @return 实际写出的文件数（未变化而跳过的文件不计入）
+     */
+    fun extract(assetDir: String, destDir: File): Int {
+        val dir = assetDir.trim('/')
+        val files = collect(dir)
+        val version = version()
+        val recordFile = recordFile(dir, destDir)
+        val old = readRecords(recordFile)
+        val sameVersion = version >= 0 && recordVersion == version
+        val records = ConcurrentHashMap<String, Record>()
+
+        val totalBytes = files.sumOf { it.size.coerceAtLeast(0) }
+        val doneBytes = AtomicLong()
+        val written = AtomicInteger()
+        val pending = ArrayList<AssetManifest.Entry>()
+        for (entry in files) {
+            val relative = relativePath(dir, entry.path)
+            val target = File(destDir, relative)
+            val record = old[relative]
+            if (record != null && isUnchanged(entry, record, target, sameVersion)) {
+                records[relative] = record
+                report(doneBytes.addAndGet(entry.size), totalBytes)
+            } else {
+                pending.add(entry)
+            }
+        }
+
+        if (!destDir.exists()) destDir.mkdirs()
+        val pool = Executors.newFixedThreadPool(threads.coerceAtMost(pending.size.coerceAtLeast(1)))
+        try {
+            val futures = ArrayList<Future<*>>(pending.size)
+            for (entry in pending) {
+                futures.add(pool.submit(Runnable {
+                    throwIfCanceled()
+                    val relative = relativePath(dir, entry.path)
+                    records[relative] = copy(entry, File(destDir, relative))
+                    written.incrementAndGet()
+                    report(doneBytes.addAndGet(entry.size.coerceAtLeast(0)), totalBytes)
+                }))
+            }
+            for (future in futures) await(future)
+        } finally {
+            // 失败或取消时取消排队中的任务，并等待运行中的任务退出后再保存记录，避免记录与磁盘上的文件不一致
+            for (queued in pool.shutdownNow()) (queued as? Future<*>)?.cancel(false)
+            awaitTermination(pool)
+            // 即使中途失败也保存已完成部分，下次只需补齐剩余文件
+            writeRecords(recordFile, version, records)
+        }
+        return written.get()
+    }
+
+    /* ========================= 内部实现 ========================= */
+
+    /**
+     * 收集目录下的全部文件，清单不包含该目录时通过 AssetManager 遍历（大小与 CRC 未知）
+     */
+    private fun collect(dir: String): List<AssetManifest.Entry> {
+        // 解出本身就在后台线程进行，这里等待清单构建完成，以便按大小与 CRC 跳过未变化的文件
+        val manifest = AssetManifest.getOrBuild(context)
+        if (manifest != null && manifest.isDirectory(dir)) {
+            val prefix = if (dir.isEmpty()) "" else "$dir/"
+            return manifest.entries.filter { it.path.startsWith(prefix) }
+        }
+        val assets = context.assets
+        val result = ArrayList<AssetManifest.Entry>()
+        val stack = ArrayDeque<String>()
+        stack.addLast(dir)
+        while (stack.isNotEmpty()) {
+            val current = stack.removeLast()
+            for (name in assets.list(current) ?: emptyArray()) {
+                val path = if (current.isEmpty()) name else "$current/$name"
+                if (!assets.list(path).isNullOrEmpty()) {
+                    stack.addLast(path)
+                } else {
+                    result.add(AssetManifest.Entry(path, -1L, -1L, true, -1L))
+                }
+            }
+        }
+        return result
+    }
+
+    private fun isUnchanged(entry: AssetManifest.Entry, record: Record, target: File, sameVersion: Boolean): Boolean {
+        if (entry.size < 0 || record.size != entry.size) return false
+        // 清单缺少 CRC 时只能依据应用版本判断
+        val crcMatches = if (entry.crc >= 0) record.crc == entry.crc else sameVersion
+        if (!crcMatches) return false
+        // 目标文件被删除或被其他程序改动过时重新写出
+        return target.isFile && target.length() == record.size && target.lastModified() == record.lastModified
+    }
+
+    /**
+     * 拷贝单个文件，同时计算 CRC
+     */
+    private fun copy(entry: AssetManifest.Entry, target: File): Record {
+        target.parentFile?.let { if (!it.exists()) it.mkdirs() }
+        val temp = File("${target.path}.tmp")
+        val buffer = takeBuffer()
+        val crc = CRC32()
+        var size = 0L
+        var success = false
+        try {
+            context.assets.open(entry.path).use { input ->
+                FileOutputStream(temp).use { output ->
+                    var count: Int
+                    while (input.read(buffer).also { count = it } != -1) {
+                        throwIfCanceled()
+                        if (Thread.currentThread().isInterrupted) throw InterruptedIOException()
+                        output.write(buffer, 0, count)
+                        crc.update(buffer, 0, count)
+                        size += count
+                    }
+                }
+            }
+            success = true
+        } finally {
+            bufferPool.offer(buffer)
+            if (!success) temp.delete()
+        }
+        if (!temp.renameTo(target)) {
+            target.delete()
+            if (!temp.renameTo(target)) {
+                temp.delete()
+                throw IOException("Rename failed: $target")
+            }
+        }
+        return Record(size, crc.value, target.lastModified())
+    }
+
+    private fun relativePath(dir: String, path: String): String {
+        return if (dir.isEmpty()) path else path.substring(dir.length + 1)
+    }
+
+    private fun report(done: Long, total: Long) {
+        listener ?: return
+        synchronized(listener) { listener.onProgress(done, total) }
+    }
+
+    /* ========================= 记录文件 ========================= */
+
+    private fun version(): Long {
+        return try {
+            context.packageManager.getPackageInfo(context.packageName, 0).lastUpdateTime
+        } catch (e: Exception) {
+            -1L
+        }
+    }
+
+    private fun recordFile(dir: String, destDir: File): File {
+        val key = "${destDir.absolutePath}|$dir".hashCode()
+        return File(File(context.filesDir, RECORD_DIR), Integer.toHexString(key))
+    }
+
+    /**
+     * 读取上次的记录，同时得到写出记录时的应用版本
+     */
+    private fun readRecords(file: File): Map<String, Record> {
+        if (!file.exists()) return emptyMap()
+        val records = HashMap<String, Record>()
+        try {
+            file.bufferedReader().use { reader ->
+                val header = reader.readLine()?.split('\t') ?: return emptyMap()
+                if (header.size != 2 || header[0] != RECORD_VERSION) return emptyMap()
+                recordVersion = header[1].toLongOrNull() ?: -1L
+                reader.forEachLine { line ->
+                    val parts = line.split('\t')
+                    if (parts.size != 4) return@forEachLine
+                    records[parts[0]] = Record(parts[1].toLong(), parts[2].toLong(), parts[3].toLong())
+                }
+            }
+        } catch (e: Exception) {
+            Log.w(TAG, "read extract records failed: ${file.absolutePath}", e)
+            return emptyMap()
+        }
+        return records
+    }
+
+    /**
+     * 先写临时文件再重命名，记录文件损坏时仅会导致全部重新写出
+     */
+    private fun writeRecords(file: File, version: Long, records: Map<String, Record>) {
+        file.parentFile?.mkdirs()
+        val temp = File("${file.path}.tmp")
+        try {
+            temp.bufferedWriter().use { writer ->
+                writer.write("$RECORD_VERSION\t$version\n")
+                for ((path, record) in records) {
+                    writer.write("$path\t${record.size}\t${record.crc}\t${record.lastModified}\n")
+                }
+            }
+            if (!temp.renameTo(file)) {
+                file.delete()
+                temp.renameTo(file)
+            }
+        } catch (e: IOException) {
+            Log.w(TAG, "write extract records failed: ${file.absolutePath}", e)
+            temp.delete()
+        }
+    }
+
+    private fun takeBuffer(): ByteArray {
+        return try {
+            bufferPool.take()
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw IOException("Interrupted while waiting for buffer", e)
+        }
+    }
+
+    private fun awaitTermination(pool: ExecutorService) {
+        try {
+            pool.awaitTermination(10, TimeUnit.SECONDS)
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+        }
+    }
+
+    private fun await(future: Future<*>) {
+        try {
+            future.get()
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw IOException("Interrupted while extracting assets", e)
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+    }
+
+    private fun throwIfCanceled() {
+        if (signal?.isCanceled == true) throw OperationCanceledException()
+    }
+}
@@ -0,0 +1,302 @@
+package top.jessi.jhelper.file
+
+import android.content.Context
+import android.content.res.AssetManager
+import android.util.Log
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileNotFoundException
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InputStreamReader
+import java.io.OutputStreamWriter
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.zip.ZipEntry
+
+/**
+ * Created by Jessi on 2026/10/19 19:40
+ * Email：17324719944@189.cn
+ * Describe：Asset 清单索引
+ *
+ * 一次性建立 assets 目录树，记录每个文件的大小、CRC、是否压缩以及在 APK 中的数据偏移：
+ * 优先直接解析 APK 的中央目录（一次读取即可得到全部信息），失败时回退到 AssetManager 逐级遍历。
+ * 清单以应用的 lastUpdateTime 为版本持久化到磁盘，应用未更新时冷启动直接读取。
+ * 构建在后台进行：[get] 不会阻塞，清单就绪前返回 null，调用方回退到 AssetManager；
+ * 可在 Application.onCreate 中调用 [prepare] 提前开始构建。
+ *
+ * 注意：清单只包含 base APK 中的应用 assets，框架自带的 assets 与 split APK 中的 assets 不在其中，
+ * [Assets] 查询未命中清单时会回退到 AssetManager。
+ */
+object AssetManifest {
+
+    private const val TAG = "JHelper-AssetManifest"
+    private const val ASSETS_PREFIX = "assets/"
+    private const val PERSIST_FILE = "jhelper_asset_manifest"
+    private const val FORMAT = "v1"
+    private const val BUFFER_SIZE = 8192
+
+    /**
+     * 清单条目
+     *
+     * @param path Asset 路径
+     * @param size 未压缩大小
+     * @param crc 未压缩数据的 CRC32，未知时为 -1
+     * @param compressed 是否在 APK 中压缩存储（压缩的 asset 无法 openFd / 内存映射）
+     * @param offset 未压缩 asset 在 APK 中的数据偏移，未知或已压缩时为 -1
+     */
+    class Entry(val path: String, val size: Long, val crc: Long, val compressed: Boolean, val offset: Long)
+
+    /**
+     * 清单数据，构建完成后只读，可在任意线程访问
+     */
+    class Manifest internal constructor(entries: List<Entry>) {
+        private val files = HashMap<String, Entry>(entries.size * 2)
+        private val dirs = HashMap<String, Array<String>>()
+
+        init {
+            val children = HashMap<String, MutableSet<String>>()
+            for (entry in entries) {
+                files[entry.path] = entry
+                var path = entry.path
+                while (path.isNotEmpty()) {
+                    val slash = path.lastIndexOf('/')
+                    val parent = if (slash < 0) "" else path.substring(0, slash)
+                    val known = children.containsKey(parent)
+                    children.getOrPut(parent) { HashSet() }.add(path.substring(slash + 1))
+                    if (known) break
+                    path = parent
+                }
+            }
+            // 与 AssetManager.list 一致按名称排序
+            for ((dir, names) in children) dirs[dir] = names.sorted().toTypedArray()
+        }
+
+        /** 全部文件条目 */
+        val entries: Collection<Entry> get() = files.values
+
+        /** 获取文件条目，不存在或是目录时返回 null */
+        fun getEntry(path: String): Entry? = files[normalize(path)]
+
+        /** 是否为目录 */
+        fun isDirectory(path: String): Boolean = dirs.containsKey(normalize(path))
+
+        /** 清单中是否存在该文件或目录 */
+        fun contains(path: String): Boolean {
+            val name = normalize(path)
+            return files.containsKey(name) || dirs.containsKey(name)
+        }
+
+        /** 列出目录下的直接子项，不是目录时返回 null */
+        fun list(dir: String): Array<String>? = dirs[normalize(dir)]
+    }
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    private val preparing = AtomicBoolean(false)
+
+    @Volatile
+    private var manifest: Manifest? = null
+
+    /**
+     * 在后台开始构建清单（或从磁盘恢复），已就绪或正在构建时不做任何事
+     *
+     * @param context 上下文
+     */
+    @JvmStatic
+    fun prepare(context: Context) {
+        if (manifest != null || !preparing.compareAndSet(false, true)) return
+        val appContext = context.applicationContext ?: context
+        scope.launch {
+            try {
+                getOrBuild(appContext)
+            } finally {
+                preparing.set(false)
+            }
+        }
+    }
+
+    /**
+     * 获取已就绪的清单，不会阻塞：尚未就绪时触发后台构建并返回 null
+     *
+     * @param context 上下文
+     * @return 清单，尚未就绪或构建失败时返回 null
+     */
+    @JvmStatic
+    fun get(context: Context): Manifest? {
+        manifest?.let { return it }
+        prepare(context)
+        return null
+    }
+
+    /**
+     * 获取清单，尚未就绪时在当前线程构建（或从磁盘恢复），不要在主线程调用
+     *
+     * @param context 上下文
+     * @return 清单，构建失败时返回 null
+     */
+    @JvmStatic
+    fun getOrBuild(context: Context): Manifest? {
+        manifest?.let { return it }
+        synchronized(this) {
+            manifest?.let { return it }
+            val built = load(context) ?: build(context)
+            manifest = built
+            return built
+        }
+    }
+
+    /**
+     * 清除内存中的清单与持久化文件，下次访问时重新构建
+     */
+    @JvmStatic
+    fun invalidate(context: Context) {
+        synchronized(this) {
+            manifest = null
+            File(context.filesDir, PERSIST_FILE).delete()
+        }
+    }
+
+    /* ========================= 构建 ========================= */
+
+    private fun build(context: Context): Manifest? {
+        val entries = try {
+            readFromApk(context)
+        } catch (e: Exception) {
+            Log.w(TAG, "read apk central directory failed, walking assets instead", e)
+            try {
+                walk(context.assets)
+            } catch (e: IOException) {
+                Log.w(TAG, "walk assets failed", e)
+                return null
+            }
+        }
+        save(context, entries)
+        return Manifest(entries)
+    }
+
+    /**
+     * 解析 base APK 的中央目录
+     */
+    private fun readFromApk(context: Context): List<Entry> {
+        val apk = File(context.applicationInfo.sourceDir)
+        val entries = ArrayList<Entry>()
+        FileInputStream(apk).use { input ->
+            val channel = input.channel
+            for (record in ZipCentralDirectory.read(channel)) {
+                if (!record.name.startsWith(ASSETS_PREFIX) || record.isDirectory()) continue
+                val compressed = record.method != ZipEntry.STORED
+                val offset = if (compressed) -1L else ZipCentralDirectory.dataOffset(channel, record)
+                entries.add(Entry(record.name.substring(ASSETS_PREFIX.length), record.size, record.crc, compressed, offset))
+            }
+        }
+        return entries
+    }
+
+    /**
+     * 通过 AssetManager 逐级遍历（无法获得 CRC）
+     */
+    private fun walk(assets: AssetManager): List<Entry> {
+        val entries = ArrayList<Entry>()
+        val stack = ArrayDeque<String>()
+        stack.addLast("")
+        while (stack.isNotEmpty()) {
+            val dir = stack.removeLast()
+            for (name in assets.list(dir) ?: emptyArray()) {
+                val path = if (dir.isEmpty()) name else "$dir/$name"
+                val children = assets.list(path)
+                if (!children.isNullOrEmpty()) {
+                    stack.addLast(path)
+                    continue
+                }
+                entries.add(describe(assets, path))
+            }
+        }
+        return entries
+    }
+
+    private fun describe(assets: AssetManager, path: String): Entry {
+        return try {
+            assets.openFd(path).use { fd -> Entry(path, fd.length, -1L, false, fd.startOffset) }
+        } catch (e: FileNotFoundException) {
+            // 压缩存储的 asset 无法 openFd，只能读一遍统计大小
+            var size = 0L
+            assets.open(path).use { input ->
+                val buffer = ByteArray(BUFFER_SIZE)
+                var read: Int
+                while (input.read(buffer).also { read = it } != -1) size += read
+            }
+            Entry(path, size, -1L, true, -1L)
+        }
+    }
+
+    /* ========================= 持久化 ========================= */
+
+    private fun version(context: Context): Long {
+        return try {
+            context.packageManager.getPackageInfo(context.packageName, 0).lastUpdateTime
+        } catch (e: Exception) {
+            -1L
+        }
+    }
+
+    /**
+     * 读取持久化的清单：首行为 "格式\t版本"，其后每行一个条目 "大小\tCRC\t是否压缩\t偏移\t路径"
+     */
+    private fun load(context: Context): Manifest? {
+        val file = File(context.filesDir, PERSIST_FILE)
+        if (!file.exists()) return null
+        return try {
+            InputStreamReader(FileInputStream(file), Charsets.UTF_8).buffered(BUFFER_SIZE).use { reader ->
+                val header = reader.readLine()?.split('\t')
+                val version = version(context)
+                if (header == null || header.size != 2 || header[0] != FORMAT || version < 0 ||
+                    header[1].toLongOrNull() != version
+                ) return null
+                val entries = ArrayList<Entry>()
+                while (true) {
+                    val line = reader.readLine() ?: break
+                    // 路径放在最后，路径中含有制表符也能正确拆分
+                    val parts = line.split('\t', limit = 5)
+                    if (parts.size != 5) return null
+                    entries.add(Entry(parts[4], parts[0].toLong(), parts[1].toLong(), parts[2] == "1", parts[3].toLong()))
+                }
+                Manifest(entries)
+            }
+        } catch (e: Exception) {
+            Log.w(TAG, "load asset manifest failed", e)
+            null
+        }
+    }
+
+    /**
+     * 写入临时文件后重命名，避免留下不完整的清单
+     */
+    private fun save(context: Context, entries: List<Entry>) {
+        val version = version(context)
+        if (version < 0) return
+        val file = File(context.filesDir, PERSIST_FILE)
+        val tempFile = File("${file.absolutePath}.tmp")
+        try {
+            val fos = FileOutputStream(tempFile)
+            OutputStreamWriter(fos, Charsets.UTF_8).buffered(BUFFER_SIZE).use { writer ->
+                writer.write("$FORMAT\t$version\n")
+                for (entry in entries) {
+                    // 含换行的路径无法按行保存，放弃持久化，下次冷启动重新构建
+                    if (entry.path.indexOf('\n') >= 0) throw IOException("Unsupported asset path: ${entry.path}")
+                    writer.write("${entry.size}\t${entry.crc}\t${if (entry.compressed) 1 else 0}\t${entry.offset}\t${entry.path}\n")
+                }
+                writer.flush()
+                fos.fd.sync()
+            }
+            if (!tempFile.renameTo(file)) tempFile.delete()
+        } catch (e: IOException) {
+            Log.w(TAG, "save asset manifest failed", e)
+            tempFile.delete()
+        }
+    }
+
+    private fun normalize(path: String): String = path.trim('/')
+}
@@ -3,18 +3,39 @@ package top.jessi.jhelper.file
 import android.content.Context
 import android.content.res.AssetFileDescriptor
 import android.graphics.Typeface
+import android.os.CancellationSignal
+import android.os.OperationCanceledException
+import android.os.SystemClock
 import android.util.Log
+import android.util.LruCache
 import com.google.gson.reflect.TypeToken
+import com.google.gson.stream.JsonReader
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.asExecutor
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.withContext
 import top.jessi.jhelper.util.IGson
 import java.io.BufferedReader
 import java.io.ByteArrayOutputStream
 import java.io.File
+import java.io.FileNotFoundException
 import java.io.FileOutputStream
 import java.io.IOException
 import java.io.InputStream
 import java.io.InputStreamReader
 import java.io.OutputStream
+import java.lang.ref.SoftReference
+import java.lang.reflect.Type
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
 
 /**
  * Created by Jessi on 2026/6/5 16:42
@@ -25,12 +46,53 @@ object Assets {
 
     private const val TAG = "JHelper-Assets"
     private const val BUFFER_SIZE = 8192
+    private const val JSON_BUFFER_SIZE = 64 * 1024
+    private const val JSON_CACHE_SIZE = 32
+    private const val FONT_CACHE_SIZE = 16 * 1024 * 1024
+    private const val DEFAULT_FONT_WEIGHT = 256 * 1024
+    private const val STYLED_FONT_WEIGHT = 1024
+    private const val COPY_BUFFER_SIZE = 64 * 1024
+    private const val PROGRESS_INTERVAL_MS = 100L
+    private const val PROGRESS_STEP_PERCENT = 5
 
     // 缓存Asset文件列表，避免重复读取
     private val assetListCache = ConcurrentHashMap<String, Array<String>>()
 
-    // 缓存字体，避免重复加载
-    private val fontCache = ConcurrentHashMap<String, Typeface>()
+    // 缓存JSON解析结果，软引用保证内存紧张时可被回收
+    private val jsonCache = LruCache<String, SoftReference<Any>>(JSON_CACHE_SIZE)
+
+    // 缓存字体，按字体文件大小计权重，超出容量时淘汰最久未使用的字体
+    // 权重在放入时确定（见 fontWeight），sizeOf 对同一条目必须始终返回相同的值
+    private val fontCache = object : LruCache<String, FontEntry>(FONT_CACHE_SIZE) {
+        override fun sizeOf(key: String, value: FontEntry): Int = value.weight
+    }
+
+    // 正在加载中的字体，同一字体的并发请求共享一次加载
+    private val fontLoads = ConcurrentHashMap<String, FontLoad>()
+
+    private val fontScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    private class FontEntry(val typeface: Typeface, val weight: Int)
+
+    /* 一次字体加载，协程通过 deferred 等待，阻塞调用方通过 latch 等待 */
+    private class FontLoad {
+        val deferred = CompletableDeferred<Typeface?>()
+        private val latch = CountDownLatch(1)
+
+        @Volatile
+        private var typeface: Typeface? = null
+
+        fun complete(result: Typeface?) {
+            typeface = result
+            latch.countDown()
+            deferred.complete(result)
+        }
+
+        fun await(): Typeface? {
+            latch.await()
+            return typeface
+        }
+    }
 
     /* ========================= 基础读取操作 ========================= */
 
@@ -62,51 +124,43 @@ object Assets {
 
     /**
      * 读取文件并解析为指定类型的对象
+     * 直接从Asset输入流流式解析，不会先把整个文件读成字符串
      *
      * @param context 上下文
      * @param assetPath Asset文件路径
      * @param type 目标类型
+     * @param useCache 是否使用解析结果缓存（缓存对象为共享实例，调用方不应修改）
      * @return 解析后的对象，失败返回null
      */
     @JvmStatic
-    fun <T> readFile(context: Context, assetPath: String, type: Class<T>): T? {
-        return try {
-            val jsonString = readFile(context, assetPath)
-            if (jsonString.isNullOrEmpty()) {
-                Log.w(TAG, "读取Asset文件内容为空: $assetPath")
-                return null
-            }
-            IGson.fromJson(jsonString, type)
-        } catch (e: Exception) {
-            Log.w(TAG, "解析Asset文件失败: $assetPath -> ${type.simpleName}", e)
-            null
-        }
+    @JvmOverloads
+    fun <T> readFile(context: Context, assetPath: String, type: Class<T>, useCache: Boolean = false): T? {
+        return decodeJson(context, assetPath, type, useCache)
     }
 
     /**
      * 读取文件并解析为指定类型的对象（支持泛型）
+     * 直接从Asset输入流流式解析，不会先把整个文件读成字符串
      *
      * @param context 上下文
      * @param assetPath Asset文件路径
      * @param typeToken 类型标记
+     * @param useCache 是否使用解析结果缓存（缓存对象为共享实例，调用方不应修改）
      * @return 解析后的对象，失败返回null
      */
     @JvmStatic
-    fun <T> readFile(context: Context, assetPath: String, typeToken: TypeToken<T>): T? {
-        return try {
-            val jsonString = readFile(context, assetPath)
-            if (jsonString.isNullOrEmpty()) {
-                Log.w(TAG, "读取Asset文件内容为空: $assetPath")
-                return null
-            }
-            IGson.fromJson(jsonString, typeToken.type)
-        } catch (e: Exception) {
-            Log.w(TAG, "解析Asset文件失败: $assetPath -> ${typeToken.type}", e)
-            null
-        }
+    @JvmOverloads
+    fun <T> readFile(context: Context, assetPath: String, typeToken: TypeToken<T>, useCache: Boolean = false): T? {
+        return decodeJson(context, assetPath, typeToken.type, useCache)
     }
 
-
+    /**
+     * 清除JSON解析结果缓存
+     */
+    @JvmStatic
+    fun clearJsonCache() {
+        jsonCache.evictAll()
+    }
 
     /**
      * 读取文件为字节数组
@@ -168,6 +222,31 @@ object Assets {
         }
     }
 
+    /**
+     * 内存映射未压缩（noCompress）的Asset文件
+     * 直接映射 APK 中该文件所在的区域，不经过堆内存拷贝，适合大型二进制表；
+     * 映射在文件描述符关闭后仍然有效，由 GC 回收
+     *
+     * @param context 上下文
+     * @param assetPath Asset文件路径（须在 APK 中以 STORED 方式存储）
+     * @return 只读的MappedByteBuffer，文件被压缩存储或失败时返回null
+     */
+    @JvmStatic
+    fun map(context: Context, assetPath: String): MappedByteBuffer? {
+        return try {
+            val fd = context.assets.openFd(assetPath)
+            // 输入流关闭时会一并关闭文件描述符，避免重复关闭
+            fd.createInputStream().use { input ->
+                input.channel.map(FileChannel.MapMode.READ_ONLY, fd.startOffset, fd.length)
+            }
+        } catch (e: FileNotFoundException) {
+            Log.w(TAG, "Asset文件被压缩存储，无法映射（可在 aaptOptions/androidResources 中配置 noCompress）: $assetPath", e)
+            null
+        } catch (e: IOException) {
+            Log.w(TAG, "映射Asset文件失败: $assetPath", e)
+            null
+        }
+    }
 
     /* ========================= 文件操作 ========================= */
 
@@ -211,37 +290,44 @@ object Assets {
                 return false
             }
 
-            val destDirFile = File(destDir)
-            if (!destDirFile.exists()) {
-                destDirFile.mkdirs()
-            }
-
-            var successCount = 0
-            for (assetFile in assetFiles) {
-                val fullAssetPath = if (assetDir.isEmpty()) assetFile else "$assetDir/$assetFile"
-                val fullDestPath = "$destDir/$assetFile"
-
-                // 如果是目录，递归复制
-                if (isDirectory(context, fullAssetPath)) {
-                    if (copyDirectory(context, fullAssetPath, fullDestPath)) {
-                        successCount++
-                    }
-                } else {
-                    // 如果是文件，直接复制
-                    if (copyTo(context, fullAssetPath, fullDestPath)) {
-                        successCount++
-                    }
-                }
-            }
-
-            val success = successCount == assetFiles.size
-            success
+            // 增量并行解出，未变化的文件直接跳过
+            extractDirectory(context, assetDir, File(destDir))
         } catch (e: Exception) {
             Log.w(TAG, "复制Asset目录失败: $assetDir -> $destDir", e)
             false
         }
     }
 
+    /**
+     * 增量并行解出目录
+     * 与上次解出时记录的大小、CRC 对比，只写出新增或变化的文件，多个文件同时拷贝，
+     * 每个文件先写临时文件再重命名，应用未更新时重复调用几乎不产生 IO
+     *
+     * @param context 上下文
+     * @param assetDir Asset目录路径，根目录传 ""
+     * @param destDir 目标目录
+     * @param signal 取消信号，可为 null
+     * @param listener 总体进度回调（在拷贝线程上回调），可为 null
+     * @return true表示成功，false表示失败或被取消
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun extractDirectory(
+        context: Context, assetDir: String, destDir: File,
+        signal: CancellationSignal? = null, listener: Zip.ProgressListener? = null
+    ): Boolean {
+        return try {
+            val threads = Runtime.getRuntime().availableProcessors().coerceAtMost(4)
+            AssetExtractor(context, threads, signal, listener).extract(assetDir, destDir)
+            true
+        } catch (e: OperationCanceledException) {
+            false
+        } catch (e: Exception) {
+            Log.w(TAG, "解出Asset目录失败: $assetDir -> $destDir", e)
+            false
+        }
+    }
+
     /**
      * 检查文件是否存在
      *
@@ -251,6 +337,7 @@ object Assets {
      */
     @JvmStatic
     fun exists(context: Context, assetPath: String): Boolean {
+        if (AssetManifest.get(context)?.getEntry(assetPath) != null) return true
         return try {
             context.assets.open(assetPath).use { true }
         } catch (e: IOException) {
@@ -275,7 +362,8 @@ object Assets {
             val cacheKey = "${context.packageName}_$assetDir"
             assetListCache[cacheKey]?.let { return it }
 
-            val files = context.assets.list(assetDir) ?: emptyArray()
+            // 优先使用清单，未命中（如框架或 split APK 中的 assets）时回退到 AssetManager
+            val files = AssetManifest.get(context)?.list(assetDir) ?: context.assets.list(assetDir) ?: emptyArray()
             // 存入缓存
             assetListCache[cacheKey] = files
             files
@@ -324,6 +412,8 @@ object Assets {
      */
     @JvmStatic
     fun getSize(context: Context, assetPath: String): Long {
+        // 清单中已记录大小，无需读取整个文件
+        AssetManifest.get(context)?.getEntry(assetPath)?.let { return it.size }
         return try {
             context.assets.open(assetPath).use { inputStream ->
                 val buffer = ByteArray(BUFFER_SIZE)
@@ -365,20 +455,71 @@ object Assets {
 
     /**
      * 从Asset加载字体文件
+     * 同一字体的并发请求共享同一次加载；其他线程正在加载时阻塞等待其结果，协程中请使用 [awaitFont]
      *
      * @param context 上下文
      * @param assetPath 字体文件路径（支持.ttf, .otf格式）
-     * @return Typeface对象，失败返回null
+     * @return Typeface对象，失败或等待被中断时返回null
      */
     @JvmStatic
     fun loadFont(context: Context, assetPath: String): Typeface? {
-        // 检查缓存
-        fontCache[assetPath]?.let { return it }
+        fontCache.get(assetPath)?.let { return it.typeface }
+
+        val load = FontLoad()
+        val existing = fontLoads.putIfAbsent(assetPath, load)
+        if (existing != null) {
+            return try {
+                existing.await()
+            } catch (e: InterruptedException) {
+                Thread.currentThread().interrupt()
+                null
+            }
+        }
+        var typeface: Typeface? = null
+        try {
+            typeface = createFont(context, assetPath)
+        } finally {
+            fontLoads.remove(assetPath, load)
+            load.complete(typeface)
+        }
+        return typeface
+    }
 
+    /**
+     * 在 IO 线程上从Asset加载字体文件
+     * 同一字体的并发请求共享同一次加载，等待可随协程取消
+     *
+     * @param context 上下文
+     * @param assetPath 字体文件路径（支持.ttf, .otf格式）
+     * @return Typeface对象，失败返回null
+     */
+    suspend fun awaitFont(context: Context, assetPath: String): Typeface? {
+        fontCache.get(assetPath)?.let { return it.typeface }
+
+        val load = FontLoad()
+        val existing = fontLoads.putIfAbsent(assetPath, load)
+        if (existing != null) return existing.deferred.await()
+        var typeface: Typeface? = null
+        try {
+            typeface = withContext(Dispatchers.IO) { createFont(context, assetPath) }
+        } finally {
+            // 即使被取消也要结束本次加载，否则其他等待方会一直挂起
+            fontLoads.remove(assetPath, load)
+            load.complete(typeface ?: fontCache.get(assetPath)?.typeface)
+        }
+        return typeface
+    }
+
+    /**
+     * 解码字体并放入缓存
+     */
+    private fun createFont(context: Context, assetPath: String): Typeface? {
         return try {
             val typeface = Typeface.createFromAsset(context.assets, assetPath)
-            // 存入缓存
-            fontCache[assetPath] = typeface
+            // 以字体文件大小作为缓存权重，只取清单或 openFd 中已知的长度，不为此再读一遍字体
+            val length = getLength(context, assetPath)
+            val weight = fontWeight(if (length > 0) length else DEFAULT_FONT_WEIGHT.toLong())
+            fontCache.put(assetPath, FontEntry(typeface, weight))
             typeface
         } catch (e: Exception) {
             Log.w(TAG, "加载字体失败: $assetPath", e)
@@ -386,6 +527,11 @@ object Assets {
         }
     }
 
+    /**
+     * 缓存权重，不超过当前容量，超大字体至少能留在缓存中，而不是放入后立即被淘汰
+     */
+    private fun fontWeight(bytes: Long): Int = bytes.coerceIn(1L, fontCache.maxSize().toLong()).toInt()
+
     /**
      * 从Asset加载字体文件并指定样式
      *
@@ -397,13 +543,13 @@ object Assets {
     @JvmStatic
     fun loadFont(context: Context, assetPath: String, style: Int): Typeface? {
         val cacheKey = "${assetPath}_style_$style"
-        fontCache[cacheKey]?.let { return it }
+        fontCache.get(cacheKey)?.let { return it.typeface }
 
+        val typeface = loadFont(context, assetPath) ?: return null
         return try {
-            val typeface = Typeface.createFromAsset(context.assets, assetPath)
             val styledTypeface = Typeface.create(typeface, style)
-            // 存入缓存
-            fontCache[cacheKey] = styledTypeface
+            // 样式字体与原字体共享字体数据，只计很小的权重
+            fontCache.put(cacheKey, FontEntry(styledTypeface, fontWeight(STYLED_FONT_WEIGHT.toLong())))
             styledTypeface
         } catch (e: Exception) {
             Log.w(TAG, "加载字体失败: $assetPath, style: $style", e)
@@ -411,6 +557,53 @@ object Assets {
         }
     }
 
+    /**
+     * 在后台并行预加载字体，适合在应用启动时调用，避免首帧在主线程解码字体
+     *
+     * @param context 上下文
+     * @param assetPaths 字体文件路径列表
+     * @param onReady 全部加载完成后在主线程回调（路径 → Typeface，不含加载失败的字体），可为 null
+     * @return [Deferred]，完成即表示全部字体已就绪，可 await 获取结果
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun preloadFonts(
+        context: Context, assetPaths: List<String>,
+        onReady: ((fonts: Map<String, Typeface>) -> Unit)? = null
+    ): Deferred<Map<String, Typeface>> {
+        val appContext = context.applicationContext ?: context
+        return fontScope.async {
+            val fonts = assetPaths.distinct()
+                .map { path -> async { path to awaitFont(appContext, path) } }
+                .awaitAll()
+                .mapNotNull { (path, typeface) -> typeface?.let { path to it } }
+                .toMap()
+            if (onReady != null) withContext(Dispatchers.Main) { onReady(fonts) }
+            fonts
+        }
+    }
+
+    /**
+     * 字体是否已加载到缓存中
+     *
+     * @param assetPath 字体文件路径
+     * @return true表示已就绪，可同步获取
+     */
+    @JvmStatic
+    fun isFontReady(assetPath: String): Boolean {
+        return fontCache.get(assetPath) != null
+    }
+
+    /**
+     * 设置字体缓存容量
+     *
+     * @param maxBytes 缓存总权重上限（按字体文件大小计算，字节）
+     */
+    @JvmStatic
+    fun setFontCacheSize(maxBytes: Int) {
+        fontCache.resize(maxBytes.coerceAtLeast(1))
+    }
+
     /**
      * 从Asset目录批量加载所有字体文件
      *
@@ -458,7 +651,7 @@ object Assets {
      */
     @JvmStatic
     fun clearFontCache() {
-        fontCache.clear()
+        fontCache.evictAll()
     }
 
     /* ========================= 批量操作 ========================= */
@@ -495,50 +688,65 @@ object Assets {
 
     /**
      * 批量复制文件（带进度回调）
+     * 文件长度从清单或 openFd 获得（压缩文件在清单未就绪时等待清单构建），只读取一次；进度回调经过节流，
+     * 仅在距上次回调超过 intervalMs 或进度前进超过 stepPercent 时触发
      *
      * @param context 上下文
      * @param assetPath Asset文件路径
      * @param destPath 目标文件路径
+     * @param intervalMs 两次回调的最小时间间隔（毫秒）
+     * @param stepPercent 进度前进达到该百分比时立即回调
+     * @param dispatcher 回调所在的调度器（如 Dispatchers.Main），为 null 时在复制线程上回调
      * @param progressCallback 进度回调函数（0-100）
      * @return true表示成功，false表示失败
      */
     @JvmStatic
+    @JvmOverloads
     fun copyWithProgress(
-        context: Context, assetPath: String,
-        destPath: String, progressCallback: (progress: Int) -> Unit
+        context: Context, assetPath: String, destPath: String,
+        intervalMs: Long = PROGRESS_INTERVAL_MS, stepPercent: Int = PROGRESS_STEP_PERCENT,
+        dispatcher: CoroutineDispatcher? = null, progressCallback: (progress: Int) -> Unit
     ): Boolean {
-        return try {
-            val inputStream = context.assets.open(assetPath)
-            val outputStream = FileOutputStream(destPath)
-
-            val buffer = ByteArray(BUFFER_SIZE)
-            var bytesRead: Int
-            var totalBytesRead = 0L
-            val fileSize = getSize(context, assetPath)
-
-            if (fileSize <= 0) {
-                inputStream.close()
-                outputStream.close()
-                return false
+        val executor = dispatcher?.asExecutor()
+        val notify = { progress: Int ->
+            if (executor == null) {
+                progressCallback(progress)
+            } else {
+                executor.execute { progressCallback(progress) }
             }
-
-            while (inputStream.read(buffer).also { bytesRead = it } != -1) {
-                outputStream.write(buffer, 0, bytesRead)
-                totalBytesRead += bytesRead
-
-                // 计算进度
-                val progress = ((totalBytesRead * 100) / fileSize).toInt()
-                progressCallback(progress.coerceIn(0, 100))
+        }
+        return try {
+            // 压缩存储的文件无法 openFd，清单尚未就绪时在当前（复制）线程上等待清单，保证有中间进度
+            val fileSize = getLength(context, assetPath).takeIf { it > 0 }
+                ?: AssetManifest.getOrBuild(context)?.getEntry(assetPath)?.size ?: -1L
+            var lastProgress = 0
+            var lastTime = SystemClock.elapsedRealtime()
+            context.assets.open(assetPath).use { inputStream ->
+                FileOutputStream(destPath).use { outputStream ->
+                    val buffer = ByteArray(COPY_BUFFER_SIZE)
+                    var bytesRead: Int
+                    var totalBytesRead = 0L
+                    while (inputStream.read(buffer).also { bytesRead = it } != -1) {
+                        outputStream.write(buffer, 0, bytesRead)
+                        totalBytesRead += bytesRead
+                        // 长度未知时只在结束时回调
+                        if (fileSize <= 0) continue
+                        val progress = ((totalBytesRead * 100) / fileSize).toInt().coerceIn(0, 99)
+                        val now = SystemClock.elapsedRealtime()
+                        if (progress > lastProgress &&
+                            (now - lastTime >= intervalMs || progress - lastProgress >= stepPercent)) {
+                            lastProgress = progress
+                            lastTime = now
+                            notify(progress)
+                        }
+                    }
+                }
             }
-
-            inputStream.close()
-            outputStream.close()
-
-            progressCallback(100) // 确保最终进度为100%
+            notify(100) // 确保最终进度为100%
             true
         } catch (e: Exception) {
             Log.w(TAG, "带进度复制Asset文件失败: $assetPath -> $destPath", e)
-            progressCallback(0) // 失败时重置进度
+            notify(0) // 失败时重置进度
             false
         }
     }
@@ -546,6 +754,44 @@ object Assets {
 
     /* ========================= 私有辅助方法 ========================= */
 
+    /**
+     * 通过 JsonReader 从Asset输入流直接解析
+     */
+    @Suppress("UNCHECKED_CAST")
+    private fun <T> decodeJson(context: Context, assetPath: String, type: Type, useCache: Boolean): T? {
+        val cacheKey = "$assetPath|$type"
+        if (useCache) jsonCache.get(cacheKey)?.get()?.let { return it as T }
+        return try {
+            context.assets.open(assetPath).use { inputStream ->
+                val reader = BufferedReader(InputStreamReader(inputStream, Charsets.UTF_8), JSON_BUFFER_SIZE)
+                JsonReader(reader).use { jsonReader ->
+                    val result: T? = IGson.fromJson(jsonReader, type)
+                    if (result == null) {
+                        Log.w(TAG, "读取Asset文件内容为空: $assetPath")
+                    } else if (useCache) {
+                        jsonCache.put(cacheKey, SoftReference(result))
+                    }
+                    result
+                }
+            }
+        } catch (e: Exception) {
+            Log.w(TAG, "解析Asset文件失败: $assetPath -> $type", e)
+            null
+        }
+    }
+
+    /**
+     * 获取文件长度而不读取内容：优先使用清单，其次 openFd（仅未压缩文件），未知时返回-1
+     */
+    private fun getLength(context: Context, assetPath: String): Long {
+        AssetManifest.get(context)?.getEntry(assetPath)?.let { return it.size }
+        return try {
+            context.assets.openFd(assetPath).use { it.length }
+        } catch (e: IOException) {
+            -1
+        }
+    }
+
     /**
      * 复制输入流到输出流
      */
@@ -565,6 +811,9 @@ object Assets {
      * 检查路径是否为目录
      */
     private fun isDirectory(context: Context, assetPath: String): Boolean {
+        AssetManifest.get(context)?.let { manifest ->
+            if (manifest.contains(assetPath)) return manifest.isDirectory(assetPath)
+        }
         return try {
             val files = context.assets.list(assetPath)
             // 如果list返回非空数组，则认为是目录
@@ -575,23 +824,11 @@ object Assets {
     }
 
     /**
-     * 从输入流获取MIME类型（简单实现）
+     * 从输入流获取MIME类型（按文件头魔数识别）
      */
     private fun getMimeTypeFromStream(inputStream: InputStream): String? {
         return try {
-            val bytes = ByteArray(8)
-            val bytesRead = inputStream.read(bytes)
-            if (bytesRead < 8) return null
-
-            // 简单的文件签名检测
-            when {
-                bytes[0] == 0xFF.toByte() && bytes[1] == 0xD8.toByte() -> "image/jpeg"
-                bytes[0] == 0x89.toByte() && bytes[1] == 0x50.toByte() -> "image/png"
-                bytes[0] == 0x47.toByte() && bytes[1] == 0x49.toByte() -> "image/gif"
-                bytes[0] == 0x25.toByte() && bytes[1] == 0x50.toByte() -> "application/pdf"
-                bytes[0] == 0x50.toByte() && bytes[1] == 0x4B.toByte() -> "application/zip"
-                else -> "application/octet-stream"
-            }
+            MimeSniffer.detect(inputStream) ?: MimeSniffer.OCTET_STREAM
         } catch (e: Exception) {
             null
         }
@@ -604,4 +841,15 @@ object Assets {
     fun clearCache() {
         assetListCache.clear()
     }
+
+    /**
+     * 清除Asset文件列表缓存与清单索引，清单会在下次访问时重新构建
+     *
+     * @param context 上下文
+     */
+    @JvmStatic
+    fun clearCache(context: Context) {
+        assetListCache.clear()
+        AssetManifest.invalidate(context)
+    }
 }
\ No newline at end of file
@@ -0,0 +1,299 @@
+package top.jessi.jhelper.file
+
+import android.os.FileObserver
+import android.os.SystemClock
+import android.util.Log
+import java.io.File
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
+/**
+ * Created by Jessi on 2026/10/19 13:58
+ * Email：17324719944@189.cn
+ * Describe：目录监听服务
+ *
+ * 基于 [FileObserver]（inotify）监听目录变化，短时间内的连续事件会合并为一个批次，
+ * 再与内存中的目录快照比对，回调精确的新增 / 修改 / 删除文件列表，无需周期性全量扫描。
+ * 持续不断的事件（如正在下载、拷贝）最多推迟回调 [debounceMs] 的 10 倍（至少 1 秒），不会一直等不到回调。
+ * 所有监听共用一个后台线程做快照比对与回调，回调运行在该线程上。
+ *
+ * 使用示例：
+ * ```
+ * val watcher = Files.watch(downloadDir, true) { batch ->
+ *     batch.added.forEach { onNewDownload(it) }
+ * }
+ * // ...
+ * watcher.close()
+ * ```
+ *
+ * 注意：inotify 本身不递归，递归模式下每个子目录各持有一个 [FileObserver]，新建子目录会自动加入监听。
+ */
+class DirectoryWatcher internal constructor(
+    private val root: File,
+    private val recursive: Boolean,
+    private val debounceMs: Long,
+    private val listener: Listener
+) : AutoCloseable {
+
+    init {
+        require(debounceMs >= 0) { "debounceMs must not be negative, but was $debounceMs" }
+    }
+
+    /** 变化回调（SAM 接口，Java 调用方可使用 lambda） */
+    fun interface Listener {
+        /** @param batch 一次合并后的变化批次 */
+        fun onChanged(batch: Batch)
+    }
+
+    /**
+     * 变化批次
+     *
+     * @param added 新增的文件与目录
+     * @param changed 内容或大小发生变化的文件
+     * @param removed 被删除的文件与目录
+     */
+    class Batch(val added: List<File>, val changed: List<File>, val removed: List<File>) {
+        fun isEmpty(): Boolean = added.isEmpty() && changed.isEmpty() && removed.isEmpty()
+    }
+
+    private companion object {
+        const val TAG = "JHelper-DirectoryWatcher"
+
+        const val EVENT_MASK = FileObserver.CREATE or FileObserver.DELETE or FileObserver.CLOSE_WRITE or
+                FileObserver.MOVED_FROM or FileObserver.MOVED_TO or FileObserver.DELETE_SELF or
+                FileObserver.MOVE_SELF
+
+        /* 快照中目录的标记值，文件使用 (lastModified, length) 组合值 */
+        const val DIR_STAMP = Long.MIN_VALUE
+
+        /* 所有监听共用的后台线程 */
+        val worker by lazy {
+            Executors.newSingleThreadScheduledExecutor {
+                Thread(it, "directory-watcher").apply { isDaemon = true }
+            }
+        }
+    }
+
+    // 以下状态仅在共享线程上访问：目录路径 → (子项名称 → 时间戳)
+    private val snapshot = HashMap<String, HashMap<String, Long>>()
+    private val observers = HashMap<String, FileObserver>()
+
+    // 连续事件最多推迟的时长
+    private val maxDelayMs = maxOf(debounceMs * 10, 1000L)
+
+    // 以下状态在 FileObserver 线程与共享线程之间共享，通过 lock 保护
+    private val lock = Any()
+    private val dirtyDirs = HashSet<String>()
+    // 自身已被删除或移走的目录，其 FileObserver 已失效，需要在共享线程上移除
+    private val deadDirs = HashSet<String>()
+    private var pending: ScheduledFuture<*>? = null
+    // 当前批次第一个事件的时间
+    private var firstDirtyAt = 0L
+
+    @Volatile
+    private var isStopped = true
+
+    /** 开始监听：在共享线程上建立初始快照（不回调），之后只回调增量变化。 */
+    fun start() {
+        if (!isStopped) return
+        isStopped = false
+        worker.execute {
+            if (isStopped) return@execute
+            val rootPath = root.absolutePath
+            // 先监听再扫描，扫描期间产生的变化由后续比对吸收，不会遗漏
+            watchDir(rootPath)
+            scanTree(rootPath, null)
+        }
+    }
+
+    /** 停止监听并释放所有 [FileObserver]。 */
+    fun stop() {
+        if (isStopped) return
+        isStopped = true
+        synchronized(lock) {
+            pending?.cancel(false)
+            pending = null
+            dirtyDirs.clear()
+            deadDirs.clear()
+        }
+        worker.execute {
+            for (observer in observers.values) observer.stopWatching()
+            observers.clear()
+            snapshot.clear()
+        }
+    }
+
+    /** 等同于 [stop]，支持 Java 7+ 的 try-with-resources。 */
+    override fun close() = stop()
+
+    fun isStopped(): Boolean = isStopped
+
+    /* ========================= 事件合并 ========================= */
+
+    private fun onEvent(dirPath: String, event: Int) {
+        if (isStopped) return
+        val selfEvent = event and (FileObserver.DELETE_SELF or FileObserver.MOVE_SELF) != 0
+        // 子目录自身被删除时由父目录比对，根目录则比对自身
+        val dirty = if (selfEvent && dirPath != root.absolutePath) {
+            File(dirPath).parent ?: dirPath
+        } else dirPath
+        synchronized(lock) {
+            val now = SystemClock.uptimeMillis()
+            if (dirtyDirs.isEmpty()) firstDirtyAt = now
+            dirtyDirs.add(dirty)
+            if (selfEvent) deadDirs.add(dirPath)
+            // 每来一个事件都推迟刷新，直到安静 debounceMs 后统一处理，但不超过批次开始后的 maxDelayMs
+            val delay = minOf(debounceMs, maxOf(0L, firstDirtyAt + maxDelayMs - now))
+            pending?.cancel(false)
+            pending = worker.schedule({ flush() }, delay, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    private fun flush() {
+        if (isStopped) return
+        val dirs: List<String>
+        val dead: List<String>
+        synchronized(lock) {
+            dirs = ArrayList(dirtyDirs)
+            dirtyDirs.clear()
+            dead = ArrayList(deadDirs)
+            deadDirs.clear()
+            pending = null
+        }
+        // inotify 在目录被删除后自动移除监听，丢弃失效的 FileObserver，比对时据此识别"删除后又重建"的目录
+        for (path in dead) observers.remove(path)?.stopWatching()
+        val rootPath = root.absolutePath
+        if (rootPath in dead && root.isDirectory) watchDir(rootPath)
+        val added = ArrayList<File>()
+        val changed = ArrayList<File>()
+        val removed = ArrayList<File>()
+        // 父目录先于子目录处理，避免子目录被删除后重复比对
+        for (dir in dirs.sorted()) {
+            if (snapshot.containsKey(dir)) diffDir(dir, added, changed, removed)
+        }
+        val batch = Batch(added, changed, removed)
+        if (batch.isEmpty() || isStopped) return
+        try {
+            listener.onChanged(batch)
+        } catch (e: Exception) {
+            // 防止调用方异常导致后续批次丢失
+            Log.w(TAG, "listener failed", e)
+        }
+    }
+
+    /* ========================= 快照比对 ========================= */
+
+    /**
+     * 将单个目录的当前状态与快照比对，新增子目录会递归纳入快照与监听
+     */
+    private fun diffDir(dirPath: String, added: MutableList<File>, changed: MutableList<File>, removed: MutableList<File>) {
+        val old = snapshot[dirPath] ?: return
+        val dir = File(dirPath)
+        if (!dir.isDirectory) {
+            // 目录本身已不存在，交由父目录的比对产生删除记录
+            if (dirPath == root.absolutePath) removeTree(dirPath, removed)
+            return
+        }
+        val children = dir.listFiles() ?: emptyArray()
+        val seen = HashSet<String>(children.size * 2)
+        for (child in children) {
+            val name = child.name
+            seen.add(name)
+            val isDir = child.isDirectory
+            if (isDir && !recursive) continue
+            val stamp = if (isDir) DIR_STAMP else stampOf(child)
+            val previous = old.put(name, stamp)
+            // 子目录在一个合并窗口内被删除后重建：时间戳相同，但原监听已失效
+            val recreated = isDir && previous == DIR_STAMP && !observers.containsKey(child.absolutePath)
+            when {
+                previous == null -> {
+                    added.add(child)
+                    if (isDir) {
+                        watchDir(child.absolutePath)
+                        scanTree(child.absolutePath, added)
+                    }
+                }
+                previous != stamp || recreated -> {
+                    if (previous == DIR_STAMP || isDir) {
+                        // 文件与目录互相替换或目录被重建，视为先删除后新增
+                        if (previous == DIR_STAMP) removeTree(child.absolutePath, removed)
+                        removed.add(child)
+                        added.add(child)
+                        if (isDir) {
+                            watchDir(child.absolutePath)
+                            scanTree(child.absolutePath, added)
+                        }
+                    } else changed.add(child)
+                }
+            }
+        }
+        val iterator = old.entries.iterator()
+        while (iterator.hasNext()) {
+            val entry = iterator.next()
+            if (entry.key in seen) continue
+            iterator.remove()
+            val path = "$dirPath/${entry.key}"
+            if (entry.value == DIR_STAMP) removeTree(path, removed)
+            removed.add(File(path))
+        }
+    }
+
+    /**
+     * 扫描目录树并写入快照，[added] 不为 null 时同时记录新增项
+     */
+    private fun scanTree(dirPath: String, added: MutableList<File>?) {
+        val stack = ArrayDeque<String>()
+        stack.addLast(dirPath)
+        while (stack.isNotEmpty()) {
+            val current = stack.removeLast()
+            val entries = HashMap<String, Long>()
+            snapshot[current] = entries
+            val children = File(current).listFiles() ?: continue
+            for (child in children) {
+                if (child.isDirectory) {
+                    if (!recursive) continue
+                    entries[child.name] = DIR_STAMP
+                    stack.addLast(child.absolutePath)
+                    added?.add(child)
+                    watchDir(child.absolutePath)
+                } else {
+                    entries[child.name] = stampOf(child)
+                    added?.add(child)
+                }
+            }
+        }
+    }
+
+    /**
+     * 从快照与监听中移除整棵子树，并记录其中所有文件为删除
+     */
+    private fun removeTree(dirPath: String, removed: MutableList<File>) {
+        val prefix = "$dirPath/"
+        val iterator = snapshot.entries.iterator()
+        while (iterator.hasNext()) {
+            val entry = iterator.next()
+            if (entry.key != dirPath && !entry.key.startsWith(prefix)) continue
+            for ((name, stamp) in entry.value) {
+                if (stamp != DIR_STAMP) removed.add(File("${entry.key}/$name"))
+            }
+            iterator.remove()
+            observers.remove(entry.key)?.stopWatching()
+        }
+    }
+
+    @Suppress("DEPRECATION")
+    private fun watchDir(dirPath: String) {
+        if (observers.containsKey(dirPath)) return
+        // FileObserver(File) 需要 API 29，这里使用路径构造函数兼容 minSdk 21
+        val observer = object : FileObserver(dirPath, EVENT_MASK) {
+            override fun onEvent(event: Int, path: String?) {
+                this@DirectoryWatcher.onEvent(dirPath, event and ALL_EVENTS)
+            }
+        }
+        observers[dirPath] = observer
+        observer.startWatching()
+    }
+
+    private fun stampOf(file: File): Long = file.lastModified() * 31 + file.length()
+}
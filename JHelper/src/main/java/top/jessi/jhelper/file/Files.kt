@@ -2,12 +2,24 @@ package top.jessi.jhelper.file
 
 import android.annotation.SuppressLint
 import android.content.Context
+import android.content.ContentResolver
 import android.content.Intent
+import android.database.Cursor
+import android.net.Uri
+import android.os.Build
+import android.os.Bundle
 import android.provider.MediaStore
 import android.text.TextUtils
 import android.util.Log
 import android.webkit.MimeTypeMap
 import androidx.core.content.FileProvider
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import top.jessi.jhelper.enigma.Checksums
+import top.jessi.jhelper.enigma.XxHash64
 import java.io.BufferedReader
 import java.io.Closeable
 import java.io.File
@@ -29,14 +41,39 @@ object Files {
     private const val TAG = "Files"
 
     /* M3U 查询相关常量 */
-    private val M3U_URI = MediaStore.Files.getContentUri("external")
+    internal val M3U_URI: Uri = MediaStore.Files.getContentUri("external")
     private val M3U_PROJECTION = arrayOf(MediaStore.Files.FileColumns.DATA, MediaStore.Files.FileColumns.DISPLAY_NAME)
-    private const val M3U_SELECTION = ("(${MediaStore.Files.FileColumns.MIME_TYPE} IN (?, ?, ?)"
+    internal const val M3U_SELECTION = ("(${MediaStore.Files.FileColumns.MIME_TYPE} IN (?, ?, ?)"
             + " OR LOWER(${MediaStore.Files.FileColumns.DATA}) LIKE ?"
             + " OR LOWER(${MediaStore.Files.FileColumns.DATA}) LIKE ?)")
-    private val M3U_SELECTION_ARGS =
+    internal val M3U_SELECTION_ARGS =
         arrayOf("audio/x-mpegurl", "application/x-mpegurl", "audio/mpegurl", "%.m3u", "%.m3u8")
 
+    /* 媒体查询投影：计数只取 _ID，分页只取键集排序列与路径列，避免加载整行 */
+    private val COUNT_PROJECTION = arrayOf(MediaStore.MediaColumns._ID)
+    private val PAGE_PROJECTION = arrayOf(
+        MediaStore.MediaColumns._ID, MediaStore.MediaColumns.DATE_MODIFIED, MediaStore.MediaColumns.DATA
+    )
+
+    /* 键集分页条件：(DATE_MODIFIED, _ID) 严格小于上一页最后一条 */
+    private const val KEYSET_SELECTION = ("(${MediaStore.MediaColumns.DATE_MODIFIED} < ?"
+            + " OR (${MediaStore.MediaColumns.DATE_MODIFIED} = ? AND ${MediaStore.MediaColumns._ID} < ?))")
+    private const val KEYSET_SORT_ORDER =
+        "${MediaStore.MediaColumns.DATE_MODIFIED} DESC, ${MediaStore.MediaColumns._ID} DESC"
+
+    /**
+     * 键集分页游标，记录上一页最后一条记录的 (DATE_MODIFIED, _ID)
+     */
+    data class MediaKey(val dateModified: Long, val id: Long)
+
+    /**
+     * 键集分页结果
+     *
+     * @param files 当前页文件列表
+     * @param nextKey 下一页游标，为 null 表示已到最后一页
+     */
+    class MediaPage(val files: MutableList<File>, val nextKey: MediaKey?)
+
     /**
      * 判断文件是否存在
      *
@@ -68,12 +105,13 @@ object Files {
             }
         }
         if (!TextUtils.isEmpty(extension)) {
-            val mimeType = MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension)
+            val mimeType = MimeSniffer.fromExtension(extension)
             if (!mimeType.isNullOrEmpty()) {
                 return mimeType
             }
         }
-        return "application/octet-stream"
+        // 扩展名缺失或未知时，按文件头识别
+        return MimeSniffer.detect(file) ?: MimeSniffer.OCTET_STREAM
     }
 
     /**
@@ -290,6 +328,7 @@ object Files {
      */
     @JvmStatic
     fun getImageTotal(context: Context): Int {
+        MediaIndex.count(MediaIndex.Type.IMAGE).let { if (it >= 0) return it }
         return queryMediaCount(context, MediaStore.Images.Media.EXTERNAL_CONTENT_URI)
     }
 
@@ -298,6 +337,7 @@ object Files {
      */
     @JvmStatic
     fun getVideoTotal(context: Context): Int {
+        MediaIndex.count(MediaIndex.Type.VIDEO).let { if (it >= 0) return it }
         return queryMediaCount(context, MediaStore.Video.Media.EXTERNAL_CONTENT_URI)
     }
 
@@ -306,14 +346,15 @@ object Files {
      */
     @JvmStatic
     fun getAudioTotal(context: Context): Int {
+        MediaIndex.count(MediaIndex.Type.AUDIO).let { if (it >= 0) return it }
         return queryMediaCount(context, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI)
     }
 
     /**
      * 通用查询媒体数量，确保 Cursor 被正确关闭
      */
-    private fun queryMediaCount(context: Context, uri: android.net.Uri): Int {
-        val cursor = context.contentResolver.query(uri, null, null, null, null) ?: return 0
+    private fun queryMediaCount(context: Context, uri: Uri): Int {
+        val cursor = context.contentResolver.query(uri, COUNT_PROJECTION, null, null, null) ?: return 0
         return cursor.use { it.count }
     }
 
@@ -322,8 +363,9 @@ object Files {
      */
     @JvmStatic
     fun getM3UTotal(context: Context): Int {
+        MediaIndex.count(MediaIndex.Type.M3U).let { if (it >= 0) return it }
         val cursor = context.contentResolver.query(
-            M3U_URI, M3U_PROJECTION, M3U_SELECTION, M3U_SELECTION_ARGS, null
+            M3U_URI, COUNT_PROJECTION, M3U_SELECTION, M3U_SELECTION_ARGS, null
         ) ?: return 0
         return cursor.use { it.count }
     }
@@ -336,11 +378,12 @@ object Files {
      */
     @JvmStatic
     fun getImageList(context: Context, pageSize: Int, curPage: Int): MutableList<File> {
+        MediaIndex.getList(MediaIndex.Type.IMAGE, pageSize, curPage)?.let { return it }
         val sortOrder = "${MediaStore.Images.Media.DATE_MODIFIED} DESC LIMIT $pageSize OFFSET ${pageSize * curPage}"
         return queryMediaFiles(
             context,
             MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-            null,
+            arrayOf(MediaStore.Images.Media.DATA),
             null,
             null,
             sortOrder,
@@ -356,11 +399,12 @@ object Files {
      */
     @JvmStatic
     fun getVideoList(context: Context, pageSize: Int, curPage: Int): MutableList<File> {
+        MediaIndex.getList(MediaIndex.Type.VIDEO, pageSize, curPage)?.let { return it }
         val sortOrder = "${MediaStore.Video.Media.DATE_MODIFIED} DESC LIMIT $pageSize OFFSET ${pageSize * curPage}"
         return queryMediaFiles(
             context,
             MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-            null,
+            arrayOf(MediaStore.Video.Media.DATA),
             null,
             null,
             sortOrder,
@@ -376,11 +420,12 @@ object Files {
      */
     @JvmStatic
     fun getAudioList(context: Context, pageSize: Int, curPage: Int): MutableList<File> {
+        MediaIndex.getList(MediaIndex.Type.AUDIO, pageSize, curPage)?.let { return it }
         val sortOrder = "${MediaStore.Audio.Media.DATE_MODIFIED} DESC LIMIT $pageSize OFFSET ${pageSize * curPage}"
         return queryMediaFiles(
             context,
             MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
-            null,
+            arrayOf(MediaStore.Audio.Media.DATA),
             null,
             null,
             sortOrder,
@@ -396,6 +441,7 @@ object Files {
      */
     @JvmStatic
     fun getM3UList(context: Context, pageSize: Int, curPage: Int): MutableList<File> {
+        MediaIndex.getList(MediaIndex.Type.M3U, pageSize, curPage)?.let { return it }
         val sortOrder = "${MediaStore.Files.FileColumns.DATE_MODIFIED} DESC LIMIT $pageSize OFFSET ${pageSize * curPage}"
         return queryMediaFiles(
             context, M3U_URI, M3U_PROJECTION, M3U_SELECTION, M3U_SELECTION_ARGS,
@@ -403,14 +449,161 @@ object Files {
         )
     }
 
+    /**
+     * 键集分页获取设备图片（按修改时间倒序），深分页耗时不随页码增长
+     *
+     * @param pageSize 每页查询大小
+     * @param after 上一页返回的 [MediaPage.nextKey]，首页传 null
+     */
+    @JvmStatic
+    fun getImagePage(context: Context, pageSize: Int, after: MediaKey?): MediaPage {
+        MediaIndex.getPage(MediaIndex.Type.IMAGE, pageSize, after)?.let { return it }
+        return queryMediaPage(context, MediaStore.Images.Media.EXTERNAL_CONTENT_URI, null, null, pageSize, after)
+    }
+
+    /**
+     * 键集分页获取设备视频（按修改时间倒序）
+     *
+     * @param pageSize 每页查询大小
+     * @param after 上一页返回的 [MediaPage.nextKey]，首页传 null
+     */
+    @JvmStatic
+    fun getVideoPage(context: Context, pageSize: Int, after: MediaKey?): MediaPage {
+        MediaIndex.getPage(MediaIndex.Type.VIDEO, pageSize, after)?.let { return it }
+        return queryMediaPage(context, MediaStore.Video.Media.EXTERNAL_CONTENT_URI, null, null, pageSize, after)
+    }
+
+    /**
+     * 键集分页获取设备音频（按修改时间倒序）
+     *
+     * @param pageSize 每页查询大小
+     * @param after 上一页返回的 [MediaPage.nextKey]，首页传 null
+     */
+    @JvmStatic
+    fun getAudioPage(context: Context, pageSize: Int, after: MediaKey?): MediaPage {
+        MediaIndex.getPage(MediaIndex.Type.AUDIO, pageSize, after)?.let { return it }
+        return queryMediaPage(context, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, null, null, pageSize, after)
+    }
+
+    /**
+     * 键集分页获取设备M3U文件（按修改时间倒序）
+     *
+     * @param pageSize 每页查询大小
+     * @param after 上一页返回的 [MediaPage.nextKey]，首页传 null
+     */
+    @JvmStatic
+    fun getM3UPage(context: Context, pageSize: Int, after: MediaKey?): MediaPage {
+        MediaIndex.getPage(MediaIndex.Type.M3U, pageSize, after)?.let { return it }
+        return queryMediaPage(context, M3U_URI, M3U_SELECTION, M3U_SELECTION_ARGS, pageSize, after)
+    }
+
+    /**
+     * 以 Flow 形式逐页流式获取设备图片，在 IO 线程查询，收集方取消即停止
+     */
+    @JvmStatic
+    fun imagePages(context: Context, pageSize: Int): Flow<MediaPage> {
+        return mediaPages(context, MediaStore.Images.Media.EXTERNAL_CONTENT_URI, null, null, pageSize)
+    }
+
+    /**
+     * 以 Flow 形式逐页流式获取设备视频
+     */
+    @JvmStatic
+    fun videoPages(context: Context, pageSize: Int): Flow<MediaPage> {
+        return mediaPages(context, MediaStore.Video.Media.EXTERNAL_CONTENT_URI, null, null, pageSize)
+    }
+
+    /**
+     * 以 Flow 形式逐页流式获取设备音频
+     */
+    @JvmStatic
+    fun audioPages(context: Context, pageSize: Int): Flow<MediaPage> {
+        return mediaPages(context, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, null, null, pageSize)
+    }
+
+    /**
+     * 以 Flow 形式逐页流式获取设备M3U文件
+     */
+    @JvmStatic
+    fun m3uPages(context: Context, pageSize: Int): Flow<MediaPage> {
+        return mediaPages(context, M3U_URI, M3U_SELECTION, M3U_SELECTION_ARGS, pageSize)
+    }
+
     // ==================== 通用私有方法 ====================
 
+    /**
+     * 逐页发射键集分页结果，直到最后一页
+     */
+    private fun mediaPages(
+        context: Context, uri: Uri, selection: String?, selectionArgs: Array<String>?, pageSize: Int
+    ): Flow<MediaPage> = flow {
+        var key: MediaKey? = null
+        do {
+            val page = queryMediaPage(context, uri, selection, selectionArgs, pageSize, key)
+            if (page.files.isNotEmpty()) emit(page)
+            key = page.nextKey
+        } while (key != null)
+    }.flowOn(Dispatchers.IO)
+
+    /**
+     * 通用键集分页查询：按 (DATE_MODIFIED DESC, _ID DESC) 排序，仅取所需列
+     */
+    private fun queryMediaPage(
+        context: Context, uri: Uri, selection: String?, selectionArgs: Array<String>?,
+        pageSize: Int, after: MediaKey?
+    ): MediaPage {
+        require(pageSize > 0) { "pageSize must be positive, but was $pageSize" }
+        var where = selection
+        var args = selectionArgs
+        if (after != null) {
+            where = if (selection == null) KEYSET_SELECTION else "$selection AND $KEYSET_SELECTION"
+            val keyArgs = arrayOf(after.dateModified.toString(), after.dateModified.toString(), after.id.toString())
+            args = if (selectionArgs == null) keyArgs else selectionArgs + keyArgs
+        }
+        val cursor = queryWithLimit(context, uri, PAGE_PROJECTION, where, args, KEYSET_SORT_ORDER, pageSize)
+            ?: return MediaPage(ArrayList(), null)
+        return cursor.use {
+            val idIndex = it.getColumnIndexOrThrow(MediaStore.MediaColumns._ID)
+            val dateIndex = it.getColumnIndexOrThrow(MediaStore.MediaColumns.DATE_MODIFIED)
+            val dataIndex = it.getColumnIndexOrThrow(MediaStore.MediaColumns.DATA)
+            val fileList = ArrayList<File>(minOf(it.count, pageSize))
+            var last: MediaKey? = null
+            var rows = 0
+            // 个别厂商 Provider 会忽略 LIMIT，这里按 pageSize 截断
+            while (rows < pageSize && it.moveToNext()) {
+                it.getString(dataIndex)?.let { path -> fileList.add(File(path)) }
+                last = MediaKey(it.getLong(dateIndex), it.getLong(idIndex))
+                rows++
+            }
+            MediaPage(fileList, if (rows < pageSize) null else last)
+        }
+    }
+
+    /**
+     * 带 LIMIT 的查询：Android 11+ 通过 Bundle 传参（不再接受排序语句中的 LIMIT），低版本拼接到排序语句
+     */
+    private fun queryWithLimit(
+        context: Context, uri: Uri, projection: Array<String>, selection: String?,
+        selectionArgs: Array<String>?, sortOrder: String, limit: Int
+    ): Cursor? {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            val queryArgs = Bundle().apply {
+                putString(ContentResolver.QUERY_ARG_SQL_SELECTION, selection)
+                putStringArray(ContentResolver.QUERY_ARG_SQL_SELECTION_ARGS, selectionArgs)
+                putString(ContentResolver.QUERY_ARG_SQL_SORT_ORDER, sortOrder)
+                putInt(ContentResolver.QUERY_ARG_LIMIT, limit)
+            }
+            return context.contentResolver.query(uri, projection, queryArgs, null)
+        }
+        return context.contentResolver.query(uri, projection, selection, selectionArgs, "$sortOrder LIMIT $limit")
+    }
+
     /**
      * 通用查询媒体文件列表（完整参数版，使用 LIMIT/OFFSET 真分页）
      */
     @SuppressLint("Range")
     private fun queryMediaFiles(
-        context: Context, uri: android.net.Uri, projection: Array<String>?, selection: String?,
+        context: Context, uri: Uri, projection: Array<String>?, selection: String?,
         selectionArgs: Array<String>?, sortOrder: String?, dataColumn: String
     ): MutableList<File> {
         val cursor = context.contentResolver.query(uri, projection, selection, selectionArgs, sortOrder)
@@ -449,6 +642,97 @@ object Files {
         return getFileDigest(file, "MD5")
     }
 
+    /**
+     * 获取文件的 xxHash64 值，速度远高于 MD5，适合文件去重、变更检测等非安全场景
+     *
+     * @param file 文件对象
+     * @return 16 位 16 进制小写字符串，文件不存在或读取失败时返回空字符串
+     */
+    @JvmStatic
+    fun getFileXxHash64(file: File): String {
+        if (!file.exists() || file.isDirectory) return ""
+        return try {
+            XxHash64.toHex(XxHash64.hash(file))
+        } catch (e: Exception) {
+            Log.w(TAG, "getFileXxHash64 failed: ${file.absolutePath}", e)
+            ""
+        }
+    }
+
+    /**
+     * 获取文件的 CRC32C 校验和，通过 mmap 读取，大文件分块并行计算后合并
+     * 阻塞直到计算完成，供 Java 调用；不要在主线程或 [Dispatchers.Default] 上调用，协程中请使用 [awaitFileCrc32c]
+     *
+     * @param file 文件对象
+     * @return 无符号 32 位校验和，文件不存在或读取失败时返回 -1
+     */
+    @JvmStatic
+    fun getFileCrc32c(file: File): Long {
+        if (!file.exists() || file.isDirectory) return -1L
+        return try {
+            Checksums.fileCrc32c(file)
+        } catch (e: Exception) {
+            Log.w(TAG, "getFileCrc32c failed: ${file.absolutePath}", e)
+            -1L
+        }
+    }
+
+    /**
+     * 获取文件的 Adler32 校验和，通过 mmap 读取，大文件分块并行计算后合并
+     * 阻塞直到计算完成，供 Java 调用；不要在主线程或 [Dispatchers.Default] 上调用，协程中请使用 [awaitFileAdler32]
+     *
+     * @param file 文件对象
+     * @return 无符号 32 位校验和，文件不存在或读取失败时返回 -1
+     */
+    @JvmStatic
+    fun getFileAdler32(file: File): Long {
+        if (!file.exists() || file.isDirectory) return -1L
+        return try {
+            Checksums.fileAdler32(file)
+        } catch (e: Exception) {
+            Log.w(TAG, "getFileAdler32 failed: ${file.absolutePath}", e)
+            -1L
+        }
+    }
+
+    /**
+     * 获取文件的 CRC32C 校验和，在 [Dispatchers.Default] 上分块并行计算，不阻塞调用线程
+     *
+     * @param file 文件对象
+     * @return 无符号 32 位校验和，文件不存在或读取失败时返回 -1
+     */
+    @JvmStatic
+    suspend fun awaitFileCrc32c(file: File): Long {
+        if (!file.exists() || file.isDirectory) return -1L
+        return try {
+            Checksums.awaitFileCrc32c(file)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.w(TAG, "awaitFileCrc32c failed: ${file.absolutePath}", e)
+            -1L
+        }
+    }
+
+    /**
+     * 获取文件的 Adler32 校验和，在 [Dispatchers.Default] 上分块并行计算，不阻塞调用线程
+     *
+     * @param file 文件对象
+     * @return 无符号 32 位校验和，文件不存在或读取失败时返回 -1
+     */
+    @JvmStatic
+    suspend fun awaitFileAdler32(file: File): Long {
+        if (!file.exists() || file.isDirectory) return -1L
+        return try {
+            Checksums.awaitFileAdler32(file)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.w(TAG, "awaitFileAdler32 failed: ${file.absolutePath}", e)
+            -1L
+        }
+    }
+
     /**
      * 通用文件摘要算法，支持 MD5 / SHA-1 / SHA-256 等
      *
@@ -475,6 +759,23 @@ object Files {
         }
     }
 
+    /**
+     * 监听目录变化，连续事件会合并后以新增/修改/删除批次回调（回调运行在共享的后台监听线程）
+     *
+     * @param root 监听的根目录
+     * @param recursive 是否递归监听子目录
+     * @param debounceMs 事件合并窗口（毫秒）
+     * @param listener 变化回调
+     * @return 已启动的监听器，不再需要时调用 [DirectoryWatcher.close]
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun watch(
+        root: File, recursive: Boolean, debounceMs: Long = 300L, listener: DirectoryWatcher.Listener
+    ): DirectoryWatcher {
+        return DirectoryWatcher(root, recursive, debounceMs, listener).also { it.start() }
+    }
+
     /**
      * 借助第三方软件打开文件
      * 需先在AndroidManifest.xml 注册 provider
@@ -0,0 +1,438 @@
+package top.jessi.jhelper.file
+
+import android.content.Context
+import android.database.ContentObserver
+import android.net.Uri
+import android.os.Build
+import android.provider.MediaStore
+import android.util.Log
+import java.io.BufferedReader
+import java.io.BufferedWriter
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InputStreamReader
+import java.io.OutputStreamWriter
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
+/**
+ * Created by Jessi on 2026/10/19 13:56
+ * Email：17324719944@189.cn
+ * Describe：媒体库内存索引
+ *
+ * 启动时全量查询一次 MediaProvider，之后通过 [ContentObserver] 监听变化，
+ * 按水位线（Android 11+ 使用 GENERATION_MODIFIED，低版本使用 DATE_MODIFIED）增量同步，
+ * 计数与分页直接从内存返回。启动后 [Files] 的总数、列表、分页方法会自动改走索引。
+ * 持久化的水位线与 MediaStore 版本绑定，媒体库重建或被清除后自动丢弃并全量重建。
+ *
+ * 使用示例：
+ * ```
+ * // Application.onCreate 中启动（可选持久化到磁盘，冷启动后立即可用）
+ * MediaIndex.start(context, persist = true)
+ * // 之后的调用不再访问 MediaProvider
+ * val total = Files.getImageTotal(context)
+ * ```
+ *
+ * 注意：需要在调用前已获得媒体读取权限。
+ */
+object MediaIndex {
+
+    private const val TAG = "JHelper-MediaIndex"
+
+    /* 变化事件合并窗口，MediaScanner 扫描时会连续触发大量 onChange */
+    private const val DEBOUNCE_MS = 500L
+
+    private const val PERSIST_VERSION = "v2"
+
+    /** 索引的媒体类型 */
+    enum class Type { IMAGE, VIDEO, AUDIO, M3U }
+
+    /** 索引条目 */
+    class Entry(val id: Long, val dateModified: Long, val path: String)
+
+    /* 按 (DATE_MODIFIED DESC, _ID DESC) 排序，与 Files 键集分页顺序一致 */
+    private val ORDER = Comparator<Entry> { a, b ->
+        val byDate = b.dateModified.compareTo(a.dateModified)
+        if (byDate != 0) byDate else b.id.compareTo(a.id)
+    }
+
+    private class Bucket(val type: Type, val uri: Uri, val selection: String?, val selectionArgs: Array<String>?) {
+        // 仅在索引线程读写
+        val entries = HashMap<Long, Entry>()
+        var maxDateModified = 0L
+        var maxGeneration = -1L
+        var observer: ContentObserver? = null
+        var pending: ScheduledFuture<*>? = null
+
+        // 供任意线程无锁读取的排序快照
+        @Volatile
+        var sorted: List<Entry> = emptyList()
+
+        @Volatile
+        var ready = false
+    }
+
+    private val buckets = ConcurrentHashMap<Type, Bucket>()
+
+    private val executor by lazy {
+        Executors.newSingleThreadScheduledExecutor {
+            Thread(it, "media-index").apply { isDaemon = true }
+        }
+    }
+
+    @Volatile
+    private var appContext: Context? = null
+
+    @Volatile
+    private var persist = false
+
+    /**
+     * 启动索引：异步全量加载（或从磁盘恢复后增量校验），并注册变化监听
+     *
+     * @param context 上下文
+     * @param types 需要索引的媒体类型，默认全部
+     * @param persist 是否持久化到磁盘，冷启动时先用磁盘数据再增量同步
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun start(context: Context, types: Array<Type> = Type.values(), persist: Boolean = false) {
+        val ctx = context.applicationContext
+        appContext = ctx
+        this.persist = persist
+        for (type in types) {
+            if (buckets.containsKey(type)) continue
+            val bucket = createBucket(type)
+            if (buckets.putIfAbsent(type, bucket) != null) continue
+            val observer = object : ContentObserver(null) {
+                override fun onChange(selfChange: Boolean) {
+                    scheduleSync(bucket)
+                }
+            }
+            bucket.observer = observer
+            ctx.contentResolver.registerContentObserver(bucket.uri, true, observer)
+            executor.execute {
+                if (buckets[type] !== bucket) return@execute
+                if (persist && load(ctx, bucket)) {
+                    publish(bucket)
+                    deltaSync(ctx, bucket)
+                } else {
+                    fullSync(ctx, bucket)
+                }
+            }
+        }
+    }
+
+    /**
+     * 停止索引，注销监听并清空内存数据（已持久化的数据保留）
+     */
+    @JvmStatic
+    fun stop() {
+        val ctx = appContext ?: return
+        for (bucket in buckets.values) {
+            bucket.pending?.cancel(false)
+            bucket.observer?.let { ctx.contentResolver.unregisterContentObserver(it) }
+            bucket.ready = false
+        }
+        buckets.clear()
+    }
+
+    /**
+     * 手动触发一次增量同步
+     */
+    @JvmStatic
+    fun refresh(type: Type) {
+        buckets[type]?.let { scheduleSync(it) }
+    }
+
+    /**
+     * 索引是否已就绪
+     */
+    @JvmStatic
+    fun isReady(type: Type): Boolean = buckets[type]?.ready == true
+
+    /**
+     * 获取媒体总数
+     *
+     * @return 总数，索引未就绪时返回 -1
+     */
+    @JvmStatic
+    fun count(type: Type): Int {
+        val bucket = buckets[type] ?: return -1
+        return if (bucket.ready) bucket.sorted.size else -1
+    }
+
+    /**
+     * 获取全部索引条目（按修改时间倒序）
+     *
+     * @return 条目快照，索引未就绪时返回 null
+     */
+    @JvmStatic
+    fun getEntries(type: Type): List<Entry>? {
+        val bucket = buckets[type] ?: return null
+        return if (bucket.ready) bucket.sorted else null
+    }
+
+    /**
+     * 按页码获取文件列表
+     *
+     * @param pageSize 每页查询大小
+     * @param curPage 当前查询页（从0开始）
+     * @return 文件列表，索引未就绪时返回 null
+     */
+    @JvmStatic
+    fun getList(type: Type, pageSize: Int, curPage: Int): MutableList<File>? {
+        val sorted = getEntries(type) ?: return null
+        val from = (pageSize.toLong() * curPage).coerceIn(0, sorted.size.toLong()).toInt()
+        val to = (from + pageSize.toLong()).coerceAtMost(sorted.size.toLong()).toInt()
+        val fileList = ArrayList<File>(to - from)
+        for (i in from until to) fileList.add(File(sorted[i].path))
+        return fileList
+    }
+
+    /**
+     * 键集分页获取文件列表，语义与 [Files.getImagePage] 等一致
+     *
+     * @param pageSize 每页查询大小
+     * @param after 上一页返回的游标，首页传 null
+     * @return 分页结果，索引未就绪时返回 null
+     */
+    @JvmStatic
+    fun getPage(type: Type, pageSize: Int, after: Files.MediaKey?): Files.MediaPage? {
+        require(pageSize > 0) { "pageSize must be positive, but was $pageSize" }
+        val sorted = getEntries(type) ?: return null
+        val from = if (after == null) 0 else firstAfter(sorted, after)
+        val to = minOf(from + pageSize, sorted.size)
+        val fileList = ArrayList<File>(to - from)
+        for (i in from until to) fileList.add(File(sorted[i].path))
+        val nextKey = if (to - from < pageSize) null else sorted[to - 1].let { Files.MediaKey(it.dateModified, it.id) }
+        return Files.MediaPage(fileList, nextKey)
+    }
+
+    /* ========================= 内部实现 ========================= */
+
+    private fun createBucket(type: Type): Bucket {
+        return when (type) {
+            Type.IMAGE -> Bucket(type, MediaStore.Images.Media.EXTERNAL_CONTENT_URI, null, null)
+            Type.VIDEO -> Bucket(type, MediaStore.Video.Media.EXTERNAL_CONTENT_URI, null, null)
+            Type.AUDIO -> Bucket(type, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, null, null)
+            Type.M3U -> Bucket(type, Files.M3U_URI, Files.M3U_SELECTION, Files.M3U_SELECTION_ARGS)
+        }
+    }
+
+    /**
+     * 二分查找排序快照中第一个严格排在游标之后的位置
+     */
+    private fun firstAfter(sorted: List<Entry>, key: Files.MediaKey): Int {
+        val probe = Entry(key.id, key.dateModified, "")
+        var low = 0
+        var high = sorted.size
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (ORDER.compare(sorted[mid], probe) <= 0) low = mid + 1 else high = mid
+        }
+        return low
+    }
+
+    @Synchronized
+    private fun scheduleSync(bucket: Bucket) {
+        val ctx = appContext ?: return
+        bucket.pending?.cancel(false)
+        bucket.pending = executor.schedule({ deltaSync(ctx, bucket) }, DEBOUNCE_MS, TimeUnit.MILLISECONDS)
+    }
+
+    private fun useGeneration(): Boolean = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+
+    private fun projection(): Array<String> {
+        return if (useGeneration()) {
+            arrayOf(
+                MediaStore.MediaColumns._ID, MediaStore.MediaColumns.DATE_MODIFIED,
+                MediaStore.MediaColumns.DATA, MediaStore.MediaColumns.GENERATION_MODIFIED
+            )
+        } else {
+            arrayOf(MediaStore.MediaColumns._ID, MediaStore.MediaColumns.DATE_MODIFIED, MediaStore.MediaColumns.DATA)
+        }
+    }
+
+    /**
+     * 全量同步，仅在首次启动且无持久化数据时执行
+     */
+    private fun fullSync(context: Context, bucket: Bucket) {
+        if (buckets[bucket.type] !== bucket) return
+        try {
+            bucket.entries.clear()
+            bucket.maxDateModified = 0L
+            bucket.maxGeneration = -1L
+            upsert(context, bucket, bucket.selection, bucket.selectionArgs)
+            publish(bucket)
+            if (persist) save(context, bucket)
+        } catch (e: Exception) {
+            Log.w(TAG, "full sync failed: ${bucket.type}", e)
+        }
+    }
+
+    /**
+     * 增量同步：查询水位线之后的新增/修改，再用 _ID 投影校验删除
+     */
+    private fun deltaSync(context: Context, bucket: Bucket) {
+        // 已 stop 的索引不再同步
+        if (buckets[bucket.type] !== bucket) return
+        try {
+            val watermarkSelection: String
+            val watermarkArg: String
+            if (useGeneration() && bucket.maxGeneration >= 0) {
+                watermarkSelection = "${MediaStore.MediaColumns.GENERATION_MODIFIED} > ?"
+                watermarkArg = bucket.maxGeneration.toString()
+            } else {
+                // 秒级精度，使用 >= 防止同一秒内的修改被遗漏
+                watermarkSelection = "${MediaStore.MediaColumns.DATE_MODIFIED} >= ?"
+                watermarkArg = bucket.maxDateModified.toString()
+            }
+            val selection = if (bucket.selection == null) watermarkSelection
+            else "${bucket.selection} AND $watermarkSelection"
+            val selectionArgs = (bucket.selectionArgs ?: emptyArray()) + watermarkArg
+            var changed = upsert(context, bucket, selection, selectionArgs)
+            if (removeDeleted(context, bucket)) changed = true
+            if (changed || !bucket.ready) {
+                publish(bucket)
+                if (persist) save(context, bucket)
+            }
+        } catch (e: Exception) {
+            Log.w(TAG, "delta sync failed: ${bucket.type}", e)
+        }
+    }
+
+    /**
+     * 查询并合并条目，同时推进水位线
+     *
+     * @return 是否有条目发生变化
+     */
+    private fun upsert(context: Context, bucket: Bucket, selection: String?, selectionArgs: Array<String>?): Boolean {
+        val cursor = context.contentResolver.query(bucket.uri, projection(), selection, selectionArgs, null)
+            ?: return false
+        var changed = false
+        cursor.use {
+            val idIndex = it.getColumnIndexOrThrow(MediaStore.MediaColumns._ID)
+            val dateIndex = it.getColumnIndexOrThrow(MediaStore.MediaColumns.DATE_MODIFIED)
+            val dataIndex = it.getColumnIndexOrThrow(MediaStore.MediaColumns.DATA)
+            val generationIndex = if (useGeneration()) {
+                it.getColumnIndex(MediaStore.MediaColumns.GENERATION_MODIFIED)
+            } else -1
+            while (it.moveToNext()) {
+                val path = it.getString(dataIndex) ?: continue
+                val entry = Entry(it.getLong(idIndex), it.getLong(dateIndex), path)
+                val old = bucket.entries.put(entry.id, entry)
+                if (old == null || old.dateModified != entry.dateModified || old.path != entry.path) changed = true
+                if (entry.dateModified > bucket.maxDateModified) bucket.maxDateModified = entry.dateModified
+                if (generationIndex >= 0) {
+                    val generation = it.getLong(generationIndex)
+                    if (generation > bucket.maxGeneration) bucket.maxGeneration = generation
+                }
+            }
+        }
+        return changed
+    }
+
+    /**
+     * 删除不会推进水位线，先比较数量，不一致时再用 _ID 投影找出被删除的条目
+     *
+     * @return 是否删除了条目
+     */
+    private fun removeDeleted(context: Context, bucket: Bucket): Boolean {
+        val countProjection = arrayOf(MediaStore.MediaColumns._ID)
+        val cursor = context.contentResolver.query(
+            bucket.uri, countProjection, bucket.selection, bucket.selectionArgs, null
+        ) ?: return false
+        return cursor.use {
+            if (it.count == bucket.entries.size) return@use false
+            val alive = HashSet<Long>(it.count * 2)
+            val idIndex = it.getColumnIndexOrThrow(MediaStore.MediaColumns._ID)
+            while (it.moveToNext()) alive.add(it.getLong(idIndex))
+            bucket.entries.keys.retainAll(alive)
+        }
+    }
+
+    private fun publish(bucket: Bucket) {
+        bucket.sorted = bucket.entries.values.sortedWith(ORDER)
+        bucket.ready = true
+    }
+
+    /* ========================= 持久化 ========================= */
+
+    private fun persistFile(context: Context, type: Type): File {
+        return File(context.filesDir, "jhelper_media_index_${type.name.lowercase()}")
+    }
+
+    /**
+     * MediaStore 版本，媒体库重建或被清除后会改变；Android 10 以下没有该接口，返回空字符串
+     */
+    private fun mediaStoreVersion(context: Context): String {
+        return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) MediaStore.getVersion(context) else ""
+    }
+
+    /**
+     * 从磁盘恢复索引
+     *
+     * @return 是否恢复成功
+     */
+    private fun load(context: Context, bucket: Bucket): Boolean {
+        val file = persistFile(context, bucket.type)
+        if (!file.exists()) return false
+        return try {
+            BufferedReader(InputStreamReader(FileInputStream(file), Charsets.UTF_8)).use { reader ->
+                val header = reader.readLine()?.split('\t') ?: return false
+                if (header.size != 4 || header[0] != PERSIST_VERSION) return false
+                // 媒体库重建后 generation 从头计数，旧水位线会漏掉变化，必须全量重建
+                if (header[1] != mediaStoreVersion(context)) return false
+                bucket.maxDateModified = header[2].toLong()
+                bucket.maxGeneration = header[3].toLong()
+                var line: String?
+                while (reader.readLine().also { line = it } != null) {
+                    // 路径中可能含有制表符，只切前两列
+                    val parts = line!!.split('\t', limit = 3)
+                    if (parts.size != 3) continue
+                    val entry = Entry(parts[0].toLong(), parts[1].toLong(), parts[2])
+                    bucket.entries[entry.id] = entry
+                }
+            }
+            true
+        } catch (e: Exception) {
+            Log.w(TAG, "load media index failed: ${file.absolutePath}", e)
+            bucket.entries.clear()
+            bucket.maxDateModified = 0L
+            bucket.maxGeneration = -1L
+            false
+        }
+    }
+
+    /**
+     * 写入临时文件后重命名，避免进程被杀时留下半个索引文件
+     */
+    private fun save(context: Context, bucket: Bucket) {
+        val file = persistFile(context, bucket.type)
+        val tempFile = File("${file.absolutePath}.tmp")
+        try {
+            val fos = FileOutputStream(tempFile)
+            BufferedWriter(OutputStreamWriter(fos, Charsets.UTF_8)).use { writer ->
+                writer.write("$PERSIST_VERSION\t${mediaStoreVersion(context)}\t${bucket.maxDateModified}\t${bucket.maxGeneration}")
+                writer.newLine()
+                for (entry in bucket.sorted) {
+                    writer.write("${entry.id}\t${entry.dateModified}\t${entry.path}")
+                    writer.newLine()
+                }
+                writer.flush()
+                fos.fd.sync()
+            }
+            if (!tempFile.renameTo(file)) {
+                Log.w(TAG, "replace media index failed: ${file.absolutePath}")
+                tempFile.delete()
+            }
+        } catch (e: IOException) {
+            Log.w(TAG, "save media index failed: ${file.absolutePath}", e)
+            tempFile.delete()
+        }
+    }
+}
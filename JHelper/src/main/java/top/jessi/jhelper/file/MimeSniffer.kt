@@ -0,0 +1,330 @@
+package top.jessi.jhelper.file
+
+import android.util.Log
+import android.util.LruCache
+import android.webkit.MimeTypeMap
+import java.io.File
+import java.io.FileInputStream
+import java.io.IOException
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.util.Locale
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Created by Jessi on 2026/10/19 10:12
+ * Email：17324719944@189.cn
+ * Describe：基于文件头魔数的 MIME 类型识别
+ *
+ * 所有签名编入一棵字节前缀树（支持通配字节），一次遍历即可取得最长匹配；
+ * 二进制签名从偏移 0 匹配，文本签名会先跳过 BOM 与空白并忽略大小写。
+ * [detect] 对 [ByteBuffer] 只做绝对位置读取，不分配内存、不改变 position；
+ * 按扩展名与按文件（路径 + 大小 + 修改时间）的识别结果均有缓存。
+ */
+object MimeSniffer {
+
+    private const val TAG = "JHelper-MimeSniffer"
+
+    /** 默认二进制类型 */
+    const val OCTET_STREAM = "application/octet-stream"
+
+    /** 识别所需的最大文件头长度 */
+    const val SNIFF_LENGTH = 512
+
+    private const val WILDCARD = -1
+
+    private class Node(val depth: Int) {
+        var keys = IntArray(0)
+        var children = arrayOfNulls<Node>(0)
+        var wildcard: Node? = null
+        var mime: String? = null
+
+        fun child(key: Int): Node? {
+            for (i in keys.indices) if (keys[i] == key) return children[i]
+            return null
+        }
+
+        fun getOrAdd(key: Int): Node {
+            if (key == WILDCARD) return wildcard ?: Node(depth + 1).also { wildcard = it }
+            child(key)?.let { return it }
+            val node = Node(depth + 1)
+            keys = keys.copyOf(keys.size + 1).also { it[keys.size] = key }
+            children = children.copyOf(children.size + 1).also { it[children.size] = node }
+            return node
+        }
+    }
+
+    private val binaryRoot = Node(0)
+    private val textRoot = Node(0)
+
+    // 扩展名 → MIME，空串表示 MimeTypeMap 无记录
+    private val extensionCache = ConcurrentHashMap<String, String>()
+
+    // 文件标识 → MIME，空串表示无法识别
+    private val fileCache = LruCache<String, String>(256)
+
+    private val headerBuffer = object : ThreadLocal<ByteArray>() {
+        override fun initialValue() = ByteArray(SNIFF_LENGTH)
+    }
+
+    init {
+        // 图片
+        binary("FF D8 FF", "image/jpeg")
+        binary("89 'PNG 0D 0A 1A 0A", "image/png")
+        binary("'GIF87a", "image/gif")
+        binary("'GIF89a", "image/gif")
+        binary("'RIFF ?? ?? ?? ?? 'WEBP", "image/webp")
+        binary("'BM", "image/bmp")
+        binary("00 00 01 00", "image/x-icon")
+        binary("'II 2A 00", "image/tiff")
+        binary("'MM 00 2A", "image/tiff")
+        binary("?? ?? ?? ?? 'ftypheic", "image/heic")
+        binary("?? ?? ?? ?? 'ftypheix", "image/heic")
+        binary("?? ?? ?? ?? 'ftypmif1", "image/heif")
+        binary("?? ?? ?? ?? 'ftypavif", "image/avif")
+        // 音视频容器
+        binary("?? ?? ?? ?? 'ftyp", "video/mp4")
+        binary("?? ?? ?? ?? 'ftypM4A 20", "audio/mp4")
+        binary("?? ?? ?? ?? 'ftypqt 20 20", "video/quicktime")
+        binary("?? ?? ?? ?? 'ftyp3gp", "video/3gpp")
+        binary("1A 45 DF A3", "video/webm")
+        binary("'RIFF ?? ?? ?? ?? 'AVI 20", "video/x-msvideo")
+        binary("'FLV 01", "video/x-flv")
+        binary("00 00 01 BA", "video/mpeg")
+        binary("00 00 01 B3", "video/mpeg")
+        binary("'RIFF ?? ?? ?? ?? 'WAVE", "audio/x-wav")
+        binary("'OggS", "audio/ogg")
+        binary("'fLaC", "audio/flac")
+        binary("'ID3", "audio/mpeg")
+        binary("FF FB", "audio/mpeg")
+        binary("FF F3", "audio/mpeg")
+        binary("FF F2", "audio/mpeg")
+        binary("FF F1", "audio/aac")
+        binary("FF F9", "audio/aac")
+        binary("'#!AMR", "audio/amr")
+        // 文档与归档
+        binary("'%PDF-", "application/pdf")
+        binary("'PK 03 04", "application/zip")
+        binary("'PK 05 06", "application/zip")
+        binary("1F 8B", "application/gzip")
+        binary("'7z BC AF 27 1C", "application/x-7z-compressed")
+        binary("'Rar! 1A 07", "application/vnd.rar")
+        binary("'BZh", "application/x-bzip2")
+        binary("FD '7zXZ 00", "application/x-xz")
+        binary("28 B5 2F FD", "application/zstd")
+        binary("'SQLite 20 'format 20 '3 00", "application/vnd.sqlite3")
+        binary("7F 'ELF", "application/x-elf")
+        binary("'dex 0A", "application/vnd.android.dex")
+        // 字体
+        binary("00 01 00 00 00", "font/ttf")
+        binary("'OTTO", "font/otf")
+        binary("'ttcf", "font/collection")
+        binary("'wOFF", "font/woff")
+        binary("'wOF2", "font/woff2")
+        // 文本（跳过 BOM 与空白后忽略大小写匹配）
+        text("<?xml", "application/xml")
+        text("<svg", "image/svg+xml")
+        text("<!doctype svg", "image/svg+xml")
+        text("<!doctype html", "text/html")
+        text("<html", "text/html")
+        text("#extm3u", "audio/x-mpegurl")
+    }
+
+    /* ========================= 识别 ========================= */
+
+    /**
+     * 从缓冲区识别 MIME 类型，读取 [position, limit) 范围，不修改缓冲区状态
+     *
+     * @param buffer 文件头数据
+     * @return MIME 类型，无法识别返回 null
+     */
+    @JvmStatic
+    fun detect(buffer: ByteBuffer): String? {
+        val start = buffer.position()
+        val end = buffer.limit()
+        matchLongest(binaryRoot, buffer, start, end, false)?.let { return it }
+        val textStart = skipBomAndWhitespace(buffer, start, end)
+        val mime = matchLongest(textRoot, buffer, textStart, end, true) ?: return null
+        // XML 声明后可能是 SVG
+        if (mime == "application/xml" && indexOf(buffer, textStart, end, SVG_TAG) >= 0) return "image/svg+xml"
+        return mime
+    }
+
+    /**
+     * 从字节数组识别 MIME 类型
+     *
+     * @param bytes 文件头数据
+     * @param offset 起始位置
+     * @param length 有效长度
+     * @return MIME 类型，无法识别返回 null
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun detect(bytes: ByteArray, offset: Int = 0, length: Int = bytes.size - offset): String? {
+        return detect(ByteBuffer.wrap(bytes, offset, length))
+    }
+
+    /**
+     * 从输入流识别 MIME 类型，流支持 mark 时会复位，否则会消费文件头
+     *
+     * @param inputStream 输入流
+     * @return MIME 类型，无法识别返回 null
+     */
+    @JvmStatic
+    fun detect(inputStream: InputStream): String? {
+        val buffer = headerBuffer.get()!!
+        val markSupported = inputStream.markSupported()
+        if (markSupported) inputStream.mark(SNIFF_LENGTH)
+        val length = readHeader(inputStream, buffer)
+        if (markSupported) inputStream.reset()
+        return if (length <= 0) null else detect(buffer, 0, length)
+    }
+
+    /**
+     * 从文件内容识别 MIME 类型，结果按路径、大小与修改时间缓存
+     *
+     * @param file 文件
+     * @return MIME 类型，无法识别或读取失败返回 null
+     */
+    @JvmStatic
+    fun detect(file: File): String? {
+        if (!file.isFile) return null
+        val key = "${file.absolutePath}|${file.length()}|${file.lastModified()}"
+        fileCache.get(key)?.let { return it.ifEmpty { null } }
+        return try {
+            val mime = FileInputStream(file).use { detect(it) }
+            fileCache.put(key, mime ?: "")
+            mime
+        } catch (e: IOException) {
+            Log.w(TAG, "detect mime type failed: ${file.absolutePath}", e)
+            null
+        }
+    }
+
+    /**
+     * 根据文件名或扩展名获取 MIME 类型（带缓存）
+     *
+     * @param name 文件名、路径或扩展名
+     * @return MIME 类型，未知扩展名返回 null
+     */
+    @JvmStatic
+    fun fromExtension(name: String): String? {
+        val dot = name.lastIndexOf('.')
+        val extension = (if (dot >= 0) name.substring(dot + 1) else name).lowercase(Locale.ROOT)
+        if (extension.isEmpty()) return null
+        val mime = extensionCache.getOrPut(extension) {
+            MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension) ?: ""
+        }
+        return mime.ifEmpty { null }
+    }
+
+    /**
+     * 快速判断文件头是否可能是 SVG（跳过 BOM 与空白后以 `<?xml` 或 `<svg` 开头），不分配字符串
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun isSvgCandidate(bytes: ByteArray, offset: Int = 0, length: Int = bytes.size - offset): Boolean {
+        val buffer = ByteBuffer.wrap(bytes, offset, length)
+        val start = skipBomAndWhitespace(buffer, offset, offset + length)
+        return startsWith(buffer, start, offset + length, XML_DECL) || startsWith(buffer, start, offset + length, SVG_TAG)
+    }
+
+    /**
+     * 清除内容识别缓存
+     */
+    @JvmStatic
+    fun clearCache() {
+        fileCache.evictAll()
+    }
+
+    /* ========================= 内部实现 ========================= */
+
+    private val XML_DECL = "<?xml".toByteArray(Charsets.US_ASCII)
+    private val SVG_TAG = "<svg".toByteArray(Charsets.US_ASCII)
+
+    /**
+     * 注册二进制签名：空格分隔，`??` 为通配字节，`'` 开头为 ASCII 字面量，其余为十六进制字节
+     */
+    private fun binary(pattern: String, mime: String) {
+        var node = binaryRoot
+        for (token in pattern.split(' ')) {
+            when {
+                token == "??" -> node = node.getOrAdd(WILDCARD)
+                token.startsWith("'") -> for (i in 1 until token.length) node = node.getOrAdd(token[i].code)
+                else -> node = node.getOrAdd(token.toInt(16))
+            }
+        }
+        node.mime = mime
+    }
+
+    /**
+     * 注册文本签名（小写）
+     */
+    private fun text(pattern: String, mime: String) {
+        var node = textRoot
+        for (c in pattern) node = node.getOrAdd(c.code)
+        node.mime = mime
+    }
+
+    /**
+     * 深度优先匹配，返回最长（最具体）的签名
+     */
+    private fun matchLongest(root: Node, buffer: ByteBuffer, start: Int, end: Int, ignoreCase: Boolean): String? {
+        return match(root, buffer, start, end, ignoreCase)?.mime
+    }
+
+    private fun match(node: Node, buffer: ByteBuffer, index: Int, end: Int, ignoreCase: Boolean): Node? {
+        var best: Node? = if (node.mime != null) node else null
+        if (index >= end) return best
+        var value = buffer.get(index).toInt() and 0xFF
+        if (ignoreCase && value in 'A'.code..'Z'.code) value += 'a'.code - 'A'.code
+        val exact = node.child(value)?.let { match(it, buffer, index + 1, end, ignoreCase) }
+        val any = node.wildcard?.let { match(it, buffer, index + 1, end, ignoreCase) }
+        // 精确分支与通配分支取更深者，深度相同时精确分支优先
+        if (any != null && (best == null || any.depth > best.depth)) best = any
+        if (exact != null && (best == null || exact.depth >= best.depth)) best = exact
+        return best
+    }
+
+    private fun skipBomAndWhitespace(buffer: ByteBuffer, start: Int, end: Int): Int {
+        var index = start
+        if (end - index >= 3 && buffer.get(index) == 0xEF.toByte() && buffer.get(index + 1) == 0xBB.toByte()
+            && buffer.get(index + 2) == 0xBF.toByte()
+        ) {
+            index += 3
+        }
+        while (index < end) {
+            val b = buffer.get(index).toInt()
+            if (b != 0x20 && b != 0x09 && b != 0x0A && b != 0x0D) break
+            index++
+        }
+        return index
+    }
+
+    private fun startsWith(buffer: ByteBuffer, start: Int, end: Int, prefix: ByteArray): Boolean {
+        if (end - start < prefix.size) return false
+        for (i in prefix.indices) {
+            var value = buffer.get(start + i).toInt() and 0xFF
+            if (value in 'A'.code..'Z'.code) value += 'a'.code - 'A'.code
+            if (value != prefix[i].toInt()) return false
+        }
+        return true
+    }
+
+    private fun indexOf(buffer: ByteBuffer, start: Int, end: Int, target: ByteArray): Int {
+        for (i in start..end - target.size) {
+            if (startsWith(buffer, i, end, target)) return i
+        }
+        return -1
+    }
+
+    private fun readHeader(inputStream: InputStream, buffer: ByteArray): Int {
+        var total = 0
+        while (total < buffer.size) {
+            val read = inputStream.read(buffer, total, buffer.size - total)
+            if (read == -1) break
+            total += read
+        }
+        return total
+    }
+}
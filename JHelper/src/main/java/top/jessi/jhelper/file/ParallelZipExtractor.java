@@ -0,0 +1,205 @@
+package top.jessi.jhelper.file;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Created by Jessi on 2026/10/19 16:05
+ * Email：17324719944@189.cn
+ * Describe：基于中央目录的并行解压
+ * 通过 {@link ZipFile} 读取中央目录后随机访问各条目，多个条目在线程池中同时解压，
+ * 缓冲区由所有线程共享复用；目标文件大小与 CRC 均与条目一致时跳过写入。
+ */
+final class ParallelZipExtractor {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int threads;
+    private final CancellationSignal signal;
+    private final Zip.ProgressListener listener;
+    private final BlockingQueue<byte[]> bufferPool;
+
+    ParallelZipExtractor(int threads, CancellationSignal signal, Zip.ProgressListener listener) {
+        this.threads = Math.max(1, threads);
+        this.signal = signal;
+        this.listener = listener;
+        this.bufferPool = new ArrayBlockingQueue<>(this.threads);
+        for (int i = 0; i < this.threads; i++) bufferPool.add(new byte[BUFFER_SIZE]);
+    }
+
+    /**
+     * 解压满足条件的条目
+     *
+     * @return 实际写入的文件数（跳过的未变化文件不计入）
+     */
+    int extract(File zipFile, File destDir, Zip.EntryFilter filter) throws IOException {
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            String destPath = destDir.getCanonicalPath();
+            List<ZipEntry> files = new ArrayList<>();
+            long totalBytes = 0;
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (filter != null && !filter.accept(entry)) continue;
+                File target = resolve(destPath, entry.getName());
+                if (entry.isDirectory()) {
+                    target.mkdirs();
+                } else {
+                    files.add(entry);
+                    totalBytes += Math.max(0, entry.getSize());
+                }
+            }
+            AtomicInteger written = new AtomicInteger();
+            AtomicLong doneBytes = new AtomicLong();
+            final long total = totalBytes;
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, files.size())));
+            List<Future<?>> futures = new ArrayList<>(files.size());
+            try {
+                for (ZipEntry entry : files) {
+                    futures.add(pool.submit(() -> {
+                        throwIfCanceled();
+                        if (extractEntry(zip, entry, resolve(destPath, entry.getName()))) written.incrementAndGet();
+                        long done = doneBytes.addAndGet(Math.max(0, entry.getSize()));
+                        if (listener != null) {
+                            synchronized (listener) {
+                                listener.onProgress(done, total);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) await(future);
+            } finally {
+                // 失败或取消时排队中的任务需逐个取消；运行中的任务被中断后自行清理临时文件，
+                // 必须等它们退出后才能关闭 ZipFile，否则返回后仍有线程在向目标目录写入
+                for (Runnable queued : pool.shutdownNow()) {
+                    if (queued instanceof Future) ((Future<?>) queued).cancel(false);
+                }
+                awaitTermination(pool);
+            }
+            return written.get();
+        }
+    }
+
+    /**
+     * 解压单个条目
+     *
+     * @return 是否写入了文件（目标未变化时返回 false）
+     */
+    boolean extractEntry(ZipFile zip, ZipEntry entry, File target) throws IOException {
+        if (isUnchanged(entry, target)) return false;
+        File parent = target.getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+        // 先写临时文件再重命名，取消或失败时不会留下半个文件
+        File temp = new File(target.getPath() + ".tmp");
+        byte[] buffer = takeBuffer();
+        boolean success = false;
+        try (InputStream in = zip.getInputStream(entry); OutputStream out = new FileOutputStream(temp)) {
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                throwIfCanceled();
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException();
+                out.write(buffer, 0, count);
+            }
+            success = true;
+        } finally {
+            bufferPool.offer(buffer);
+            if (!success) temp.delete();
+        }
+        if (!temp.renameTo(target)) {
+            target.delete();
+            if (!temp.renameTo(target)) {
+                temp.delete();
+                throw new IOException("Rename failed: " + target);
+            }
+        }
+        if (entry.getTime() > 0) target.setLastModified(entry.getTime());
+        return true;
+    }
+
+    /**
+     * 目标文件大小与 CRC 均与条目一致时视为未变化
+     */
+    private boolean isUnchanged(ZipEntry entry, File target) throws IOException {
+        if (!target.isFile() || entry.getSize() < 0 || entry.getCrc() < 0) return false;
+        if (target.length() != entry.getSize()) return false;
+        CRC32 crc = new CRC32();
+        byte[] buffer = takeBuffer();
+        try (InputStream in = new FileInputStream(target)) {
+            int count;
+            while ((count = in.read(buffer)) != -1) crc.update(buffer, 0, count);
+        } finally {
+            bufferPool.offer(buffer);
+        }
+        return crc.getValue() == entry.getCrc();
+    }
+
+    /**
+     * 解析条目的目标路径，拒绝 ../ 等越出目标目录的条目（Zip Slip）
+     */
+    static File resolve(String destPath, String name) throws IOException {
+        File target = new File(destPath, name);
+        String targetPath = target.getCanonicalPath();
+        if (!targetPath.equals(destPath) && !targetPath.startsWith(destPath + File.separator)) {
+            throw new IOException("Entry is outside of the target dir: " + name);
+        }
+        return target;
+    }
+
+    private byte[] takeBuffer() throws IOException {
+        try {
+            return bufferPool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for buffer", e);
+        }
+    }
+
+    private static void awaitTermination(ExecutorService pool) {
+        try {
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private void throwIfCanceled() {
+        if (signal != null && signal.isCanceled()) throw new OperationCanceledException();
+    }
+}
@@ -0,0 +1,359 @@
+package top.jessi.jhelper.file;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Created by Jessi on 2026/10/19 14:48
+ * Email：17324719944@189.cn
+ * Describe：并行 zip 压缩
+ * 各条目在线程池中并行压缩到内存缓冲区（大文件溢出到临时文件），再由调用线程按原顺序拼接写入。
+ * 已压缩格式（按扩展名或采样熵值判断）直接以 STORED 方式存储，避免无效的 deflate 消耗 CPU。
+ */
+final class ParallelZipWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // 超过该大小的压缩结果写入临时文件，避免占用过多内存
+    private static final int SPILL_THRESHOLD = 8 * 1024 * 1024;
+    // 采样熵值（比特/字节）超过该值视为不可压缩
+    private static final double INCOMPRESSIBLE_ENTROPY = 7.5;
+    private static final int ENTROPY_SAMPLE_SIZE = 64 * 1024;
+
+    /* 已压缩格式，deflate 基本无收益 */
+    private static final Set<String> STORED_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "heif", "avif",
+            "mp4", "m4v", "m4a", "mkv", "webm", "mov", "3gp", "avi", "flv", "ts",
+            "mp3", "aac", "ogg", "opus", "flac", "amr",
+            "zip", "apk", "aab", "jar", "gz", "tgz", "bz2", "xz", "7z", "rar", "zst", "br",
+            "docx", "xlsx", "pptx", "epub", "woff", "woff2"));
+
+    static final class Source {
+        final File file;
+        final String name;
+
+        Source(File file, String name) {
+            this.file = file;
+            this.name = name;
+        }
+    }
+
+    /* 单个条目的压缩结果 */
+    private static final class Result {
+        Source source;
+        int method;
+        long crc;
+        long size;
+        long compressedSize;
+        byte[] data;
+        int dataLength;
+        File spill;
+    }
+
+    private final int level;
+    private final int threads;
+    private final CancellationSignal signal;
+    private final Zip.ProgressListener listener;
+
+    ParallelZipWriter(int level, int threads, CancellationSignal signal, Zip.ProgressListener listener) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.level = level;
+        this.threads = Math.max(1, threads);
+        this.signal = signal;
+        this.listener = listener;
+    }
+
+    /**
+     * 压缩文件或文件夹，条目命名规则与 {@link Zip#zip(File, File)} 一致
+     */
+    void write(File srcFile, File destFile) throws IOException {
+        List<Source> sources = new ArrayList<>();
+        collect(srcFile, "", sources);
+        long totalBytes = 0;
+        for (Source source : sources) totalBytes += source.file.length();
+        if (sources.size() > RawZipWriter.MAX_ENTRIES || totalBytes > RawZipWriter.MAX_SIZE) {
+            // 需要 Zip64，交给 ZipOutputStream 顺序写入
+            writeSequential(sources, destFile, totalBytes);
+            return;
+        }
+
+        RawZipWriter writer = null;
+        boolean success = false;
+        try {
+            writer = new RawZipWriter(new BufferedOutputStream(new FileOutputStream(destFile), BUFFER_SIZE));
+            writeSources(writer, sources, destFile.getAbsoluteFile().getParentFile(), 0, totalBytes);
+            writer.finish();
+            success = true;
+        } finally {
+            Files.closeQuietly(writer);
+            if (!success) destFile.delete();
+        }
+    }
+
+    /**
+     * 并行压缩并按顺序追加到已打开的写入器，不写入中央目录
+     *
+     * @param tempDir    溢出临时文件所在目录
+     * @param doneBytes  进度起始值
+     * @param totalBytes 进度总量
+     */
+    void writeSources(RawZipWriter writer, List<Source> sources, File tempDir, long doneBytes, long totalBytes)
+            throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // 滑动窗口：最多同时持有 2 倍线程数的压缩结果，保证内存有界
+        int window = threads * 2;
+        List<Future<Result>> futures = new ArrayList<>(sources.size());
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int submitted = 0;
+            for (int i = 0; i < sources.size(); i++) {
+                while (submitted < sources.size() && submitted < i + window) {
+                    final Source source = sources.get(submitted++);
+                    futures.add(pool.submit(() -> compress(source, tempDir)));
+                }
+                throwIfCanceled();
+                Result result = await(futures.get(i));
+                futures.set(i, null);
+                try {
+                    append(writer, result, buffer);
+                } finally {
+                    release(result);
+                }
+                doneBytes += result.size;
+                if (listener != null) listener.onProgress(doneBytes, totalBytes);
+            }
+        } finally {
+            // shutdownNow 只会移除排队中的任务而不会取消其 Future，需逐个取消，否则 get() 会永久阻塞；
+            // 运行中的任务会被中断并自行清理，等待其退出后再释放已完成的结果
+            for (Runnable queued : pool.shutdownNow()) {
+                if (queued instanceof Future) ((Future<?>) queued).cancel(false);
+            }
+            awaitTermination(pool);
+            // 释放已完成但未写入的中间结果
+            for (Future<Result> future : futures) {
+                if (future == null || !future.isDone() || future.isCancelled()) continue;
+                try {
+                    release(future.get());
+                } catch (Exception ignored) {
+                    // 任务失败，无需释放
+                }
+            }
+        }
+    }
+
+    private void writeSequential(List<Source> sources, File destFile, long totalBytes) throws IOException {
+        boolean success = false;
+        ZipOutputStream out = null;
+        try {
+            out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(destFile), BUFFER_SIZE));
+            out.setLevel(level);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long doneBytes = 0;
+            for (Source source : sources) {
+                throwIfCanceled();
+                out.putNextEntry(new ZipEntry(source.name));
+                try (InputStream in = new FileInputStream(source.file)) {
+                    int count;
+                    while ((count = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, count);
+                        doneBytes += count;
+                    }
+                }
+                out.closeEntry();
+                if (listener != null) listener.onProgress(doneBytes, totalBytes);
+            }
+            out.finish();
+            success = true;
+        } finally {
+            Files.closeQuietly(out);
+            if (!success) destFile.delete();
+        }
+    }
+
+    private void collect(File srcFile, String path, List<Source> sources) {
+        if (srcFile.isDirectory()) {
+            File[] files = srcFile.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    collect(file, path + srcFile.getName() + "/", sources);
+                }
+            }
+        } else {
+            sources.add(new Source(srcFile, path + srcFile.getName()));
+        }
+    }
+
+    private Result compress(Source source, File tempDir) throws IOException {
+        throwIfCanceled();
+        Result result = new Result();
+        result.source = source;
+        result.size = source.file.length();
+        if (level == Deflater.NO_COMPRESSION || isIncompressible(source.file)) {
+            result.method = ZipEntry.STORED;
+            result.crc = crc(source.file);
+            result.compressedSize = result.size;
+            return result;
+        }
+        Deflater deflater = new Deflater(level, true);
+        CRC32 crc = new CRC32();
+        OutputStream target;
+        ByteArrayOutputStream memory = null;
+        if (result.size > SPILL_THRESHOLD) {
+            result.spill = File.createTempFile("zip", ".part", tempDir);
+            target = new FileOutputStream(result.spill);
+        } else {
+            memory = new ByteArrayOutputStream((int) Math.max(32, result.size / 2));
+            target = memory;
+        }
+        try (InputStream in = new FileInputStream(source.file);
+             DeflaterOutputStream out = new DeflaterOutputStream(target, deflater, BUFFER_SIZE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                throwIfCanceled();
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException();
+                crc.update(buffer, 0, count);
+                out.write(buffer, 0, count);
+            }
+            out.finish();
+            result.compressedSize = deflater.getBytesWritten();
+        } catch (IOException | RuntimeException e) {
+            release(result);
+            throw e;
+        } finally {
+            deflater.end();
+        }
+        result.crc = crc.getValue();
+        if (result.compressedSize >= result.size) {
+            // 压缩后反而更大，改为存储
+            release(result);
+            result.method = ZipEntry.STORED;
+            result.compressedSize = result.size;
+            return result;
+        }
+        result.method = ZipEntry.DEFLATED;
+        if (memory != null) {
+            result.data = memory.toByteArray();
+            result.dataLength = result.data.length;
+        }
+        return result;
+    }
+
+    private void append(RawZipWriter writer, Result result, byte[] buffer) throws IOException {
+        String name = result.source.name;
+        long time = result.source.file.lastModified();
+        if (result.data != null) {
+            writer.writeEntry(name, result.method, time, result.crc, result.size, result.data, result.dataLength);
+            return;
+        }
+        File dataFile = result.spill != null ? result.spill : result.source.file;
+        try (InputStream in = new FileInputStream(dataFile)) {
+            writer.writeEntry(name, result.method, time, result.crc, result.compressedSize, result.size, in, buffer);
+        }
+    }
+
+    private static void release(Result result) {
+        if (result == null) return;
+        result.data = null;
+        if (result.spill != null) {
+            result.spill.delete();
+            result.spill = null;
+        }
+    }
+
+    private Result await(Future<Result> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 等待被中断的压缩任务退出，避免其在释放之后继续写入溢出文件
+     */
+    private static void awaitTermination(ExecutorService pool) {
+        try {
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void throwIfCanceled() {
+        if (signal != null && signal.isCanceled()) throw new OperationCanceledException();
+    }
+
+    /**
+     * 按扩展名或采样熵值判断文件是否不可压缩
+     */
+    static boolean isIncompressible(File file) throws IOException {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0 && STORED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        if (file.length() < 1024) return false;
+        int[] histogram = new int[256];
+        int total = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+            byte[] buffer = new byte[8192];
+            int count;
+            while (total < ENTROPY_SAMPLE_SIZE && (count = in.read(buffer, 0, Math.min(buffer.length, ENTROPY_SAMPLE_SIZE - total))) != -1) {
+                for (int i = 0; i < count; i++) histogram[buffer[i] & 0xFF]++;
+                total += count;
+            }
+        }
+        if (total == 0) return false;
+        double entropy = 0;
+        for (int value : histogram) {
+            if (value == 0) continue;
+            double p = (double) value / total;
+            entropy -= p * (Math.log(p) / Math.log(2));
+        }
+        return entropy > INCOMPRESSIBLE_ENTROPY;
+    }
+
+    private static long crc(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) != -1) crc.update(buffer, 0, count);
+        }
+        return crc.getValue();
+    }
+}
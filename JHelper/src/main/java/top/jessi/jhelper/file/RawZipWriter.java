@@ -0,0 +1,212 @@
+package top.jessi.jhelper.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+/**
+ * Created by Jessi on 2026/10/19 14:20
+ * Email：17324719944@189.cn
+ * Describe：按原始字节写入 zip 条目
+ * 调用方自行提供已压缩（或存储）的数据及 CRC、大小，写入器只负责本地文件头、数据与中央目录，
+ * 因此可以把并行压缩好的数据或从旧压缩包原样拷贝的数据直接拼接成新的压缩包。
+ * 不支持 Zip64，超过 4GB 或 65535 个条目时由调用方回退到 ZipOutputStream。
+ */
+final class RawZipWriter implements Closeable {
+    /* 普通 zip 格式上限，超过需要 Zip64 */
+    static final long MAX_SIZE = 0xFFFFFFFFL;
+    static final int MAX_ENTRIES = 0xFFFF;
+
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int VERSION = 20;
+    // 文件名使用 UTF-8 编码
+    private static final int FLAG_UTF8 = 0x0800;
+
+    private static final class Central {
+        byte[] name;
+        int flags;
+        int method;
+        long dosTime;
+        long crc;
+        long compressedSize;
+        long size;
+        long offset;
+    }
+
+    private final OutputStream out;
+    private final List<Central> centrals = new ArrayList<>();
+    private final byte[] header = new byte[46];
+    private long written;
+
+    RawZipWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * 写入一个条目
+     *
+     * @param name           条目名称
+     * @param method         {@link ZipEntry#STORED} 或 {@link ZipEntry#DEFLATED}
+     * @param time           修改时间（毫秒）
+     * @param crc            未压缩数据的 CRC32
+     * @param compressedSize 写入数据的长度
+     * @param size           未压缩数据的长度
+     * @param data           条目数据（STORED 为原始数据，DEFLATED 为 raw deflate 数据）
+     * @param buffer         拷贝缓冲区
+     */
+    void writeEntry(String name, int method, long time, long crc, long compressedSize, long size,
+                    InputStream data, byte[] buffer) throws IOException {
+        writeHeader(name.getBytes(StandardCharsets.UTF_8), FLAG_UTF8, method, toDosTime(time), crc,
+                compressedSize, size);
+        copy(data, compressedSize, buffer);
+    }
+
+    /**
+     * 写入一个条目（用于从其他压缩包原样拷贝条目）
+     *
+     * @param name    原始文件名字节，不做重新编码
+     * @param flags   原条目的通用标志位，仅保留其中的 UTF-8 标志
+     * @param dosTime MS-DOS 格式的修改时间
+     */
+    void writeRawEntry(byte[] name, int flags, int method, long dosTime, long crc, long compressedSize, long size,
+                       InputStream data, byte[] buffer) throws IOException {
+        writeHeader(name, flags & FLAG_UTF8, method, dosTime, crc, compressedSize, size);
+        copy(data, compressedSize, buffer);
+    }
+
+    private void copy(InputStream data, long compressedSize, byte[] buffer) throws IOException {
+        long remaining = compressedSize;
+        while (remaining > 0) {
+            int count = data.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (count == -1) throw new IOException("Unexpected end of entry data");
+            out.write(buffer, 0, count);
+            remaining -= count;
+        }
+        written += compressedSize;
+    }
+
+    /**
+     * 写入一个条目（数据位于内存中）
+     */
+    void writeEntry(String name, int method, long time, long crc, long size, byte[] data, int length)
+            throws IOException {
+        writeHeader(name.getBytes(StandardCharsets.UTF_8), FLAG_UTF8, method, toDosTime(time), crc, length, size);
+        out.write(data, 0, length);
+        written += length;
+    }
+
+    /**
+     * 写入中央目录与结束记录，不关闭底层输出流
+     */
+    void finish() throws IOException {
+        if (centrals.size() > MAX_ENTRIES) throw new IOException("Too many entries for zip: " + centrals.size());
+        long centralOffset = written;
+        for (Central central : centrals) {
+            putInt(header, 0, CENTRAL_HEADER_SIG);
+            putShort(header, 4, VERSION);
+            putShort(header, 6, VERSION);
+            putShort(header, 8, central.flags);
+            putShort(header, 10, central.method);
+            putInt(header, 12, (int) central.dosTime);
+            putInt(header, 16, (int) central.crc);
+            putInt(header, 20, (int) central.compressedSize);
+            putInt(header, 24, (int) central.size);
+            putShort(header, 28, central.name.length);
+            // extra、comment、磁盘号、内部属性
+            putShort(header, 30, 0);
+            putShort(header, 32, 0);
+            putShort(header, 34, 0);
+            putShort(header, 36, 0);
+            putInt(header, 38, 0);
+            putInt(header, 42, (int) central.offset);
+            out.write(header, 0, 46);
+            out.write(central.name);
+            written += 46 + central.name.length;
+        }
+        long centralSize = written - centralOffset;
+        if (centralOffset > MAX_SIZE) throw new IOException("Zip too large without Zip64");
+        putInt(header, 0, END_SIG);
+        putShort(header, 4, 0);
+        putShort(header, 6, 0);
+        putShort(header, 8, centrals.size());
+        putShort(header, 10, centrals.size());
+        putInt(header, 12, (int) centralSize);
+        putInt(header, 16, (int) centralOffset);
+        putShort(header, 20, 0);
+        out.write(header, 0, 22);
+        written += 22;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeHeader(byte[] name, int flags, int method, long dosTime, long crc, long compressedSize,
+                             long size) throws IOException {
+        if (compressedSize > MAX_SIZE || size > MAX_SIZE || written > MAX_SIZE) {
+            throw new IOException("Entry too large without Zip64: " + new String(name, StandardCharsets.UTF_8));
+        }
+        Central central = new Central();
+        central.name = name;
+        central.flags = flags;
+        central.method = method;
+        central.dosTime = dosTime;
+        central.crc = crc;
+        central.compressedSize = compressedSize;
+        central.size = size;
+        central.offset = written;
+        centrals.add(central);
+
+        putInt(header, 0, LOCAL_HEADER_SIG);
+        putShort(header, 4, VERSION);
+        putShort(header, 6, flags);
+        putShort(header, 8, method);
+        putInt(header, 10, (int) central.dosTime);
+        putInt(header, 14, (int) crc);
+        putInt(header, 18, (int) compressedSize);
+        putInt(header, 22, (int) size);
+        putShort(header, 26, central.name.length);
+        putShort(header, 28, 0);
+        out.write(header, 0, 30);
+        out.write(central.name);
+        written += 30 + central.name.length;
+    }
+
+    /**
+     * 毫秒时间转换为 MS-DOS 日期时间（高 16 位日期，低 16 位时间）
+     */
+    static long toDosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) return (1 << 21) | (1 << 16);
+        return ((long) (year - 1980) << 25)
+                | ((long) (calendar.get(Calendar.MONTH) + 1) << 21)
+                | ((long) calendar.get(Calendar.DAY_OF_MONTH) << 16)
+                | ((long) calendar.get(Calendar.HOUR_OF_DAY) << 11)
+                | ((long) calendar.get(Calendar.MINUTE) << 5)
+                | ((long) calendar.get(Calendar.SECOND) >> 1);
+    }
+
+    private static void putShort(byte[] b, int offset, int value) {
+        b[offset] = (byte) value;
+        b[offset + 1] = (byte) (value >>> 8);
+    }
+
+    private static void putInt(byte[] b, int offset, int value) {
+        b[offset] = (byte) value;
+        b[offset + 1] = (byte) (value >>> 8);
+        b[offset + 2] = (byte) (value >>> 16);
+        b[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -1,12 +1,26 @@
 package top.jessi.jhelper.file;
 
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
@@ -17,9 +31,34 @@ import java.util.zip.ZipOutputStream;
  */
 public class Zip {
     private static final int BUFFER_SIZE = 4096;
+    // 通用标志位：文件名使用 UTF-8 编码
+    private static final int FLAG_UTF8 = 0x0800;
+
+    /**
+     * 进度回调，压缩/解压、Asset 解出与 {@link top.jessi.jhelper.enigma.Enigma} 的流式加解密共用，
+     * 回调所在线程以各方法的说明为准
+     */
+    public interface ProgressListener {
+        /**
+         * @param processedBytes 已处理的字节数（压缩/解压为未压缩字节，加解密为输入字节）
+         * @param totalBytes     字节总数，未知时为 -1
+         */
+        void onProgress(long processedBytes, long totalBytes);
+    }
 
     /**
-     * 压缩文件或文件夹
+     * 条目过滤器
+     */
+    public interface EntryFilter {
+        /**
+         * @param entry 压缩包条目
+         * @return true 表示需要处理该条目
+         */
+        boolean accept(ZipEntry entry);
+    }
+
+    /**
+     * 压缩文件或文件夹（顺序压缩，无法读取的文件会被跳过），需要并行压缩时使用 {@link #zipParallel}
      *
      * @param srcFile  待压缩的文件或文件夹
      * @param destFile 压缩后的文件
@@ -36,6 +75,43 @@ public class Zip {
         }
     }
 
+    /**
+     * 并行压缩文件或文件夹（默认压缩级别，线程数为 CPU 核心数）
+     *
+     * @param srcFile  待压缩的文件或文件夹
+     * @param destFile 压缩后的文件
+     * @return 是否压缩成功
+     */
+    public static boolean zipParallel(File srcFile, File destFile) {
+        return zipParallel(srcFile, destFile, Deflater.DEFAULT_COMPRESSION, null, null);
+    }
+
+    /**
+     * 并行压缩文件或文件夹
+     * 各条目在多个线程中同时压缩后按顺序写入；图片、音视频、压缩包等已压缩格式
+     * （按扩展名或采样熵值判断）直接存储，不再重复 deflate
+     *
+     * @param srcFile  待压缩的文件或文件夹
+     * @param destFile 压缩后的文件
+     * @param level    压缩级别 0-9，{@link Deflater#DEFAULT_COMPRESSION} 为默认级别
+     * @param signal   取消信号，可为 null
+     * @param listener 进度回调，可为 null
+     * @return 是否压缩成功，取消或失败时会删除不完整的目标文件
+     */
+    public static boolean zipParallel(File srcFile, File destFile, int level,
+                                      CancellationSignal signal, ProgressListener listener) {
+        try {
+            int threads = Runtime.getRuntime().availableProcessors();
+            new ParallelZipWriter(level, threads, signal, listener).write(srcFile, destFile);
+            return true;
+        } catch (OperationCanceledException e) {
+            return false;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
     /**
      * 解压缩文件
      *
@@ -78,6 +154,184 @@ public class Zip {
         }
     }
 
+    /**
+     * 列出压缩包中的条目（只读取中央目录，不解压数据）
+     *
+     * @param zipFile 压缩文件
+     * @return 条目列表，失败返回空列表
+     */
+    public static List<ZipEntry> listEntries(File zipFile) {
+        List<ZipEntry> result = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                result.add(entries.nextElement());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return result;
+    }
+
+    /**
+     * 随机访问解压单个条目，无需读取其之前的数据
+     *
+     * @param zipFile   压缩文件
+     * @param entryName 条目名称
+     * @param destFile  目标文件
+     * @return 是否成功（条目不存在返回 false，目标文件未变化时直接返回 true）
+     */
+    public static boolean unzipEntry(File zipFile, String entryName, File destFile) {
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            ZipEntry entry = zip.getEntry(entryName);
+            if (entry == null || entry.isDirectory()) return false;
+            new ParallelZipExtractor(1, null, null).extractEntry(zip, entry, destFile);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 并行解压全部条目（线程数为 CPU 核心数）
+     *
+     * @param zipFile 待解压的压缩文件
+     * @param destDir 解压后的文件夹
+     * @return 是否解压成功
+     */
+    public static boolean unzipParallel(File zipFile, File destDir) {
+        return unzipParallel(zipFile, destDir, null, null, null);
+    }
+
+    /**
+     * 基于中央目录并行解压
+     * 各条目在多个线程中同时解压，缓冲区共享复用；目标文件大小与 CRC 均与条目一致时跳过，
+     * 适合重复解压同一个压缩包的场景
+     *
+     * @param zipFile  待解压的压缩文件
+     * @param destDir  解压后的文件夹
+     * @param filter   条目过滤器，为 null 时解压全部
+     * @param signal   取消信号，可为 null
+     * @param listener 进度回调（在解压线程上回调），可为 null
+     * @return 是否解压成功
+     */
+    public static boolean unzipParallel(File zipFile, File destDir, EntryFilter filter,
+                                        CancellationSignal signal, ProgressListener listener) {
+        try {
+            int threads = Runtime.getRuntime().availableProcessors();
+            new ParallelZipExtractor(threads, signal, listener).extract(zipFile, destDir, filter);
+            return true;
+        } catch (OperationCanceledException e) {
+            return false;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 增量更新压缩包（默认压缩级别）
+     *
+     * @param archive 压缩文件，不存在时新建
+     * @param changes 条目名称 → 新内容文件，值为 null 表示删除该条目
+     * @return 是否更新成功，失败时原压缩包保持不变
+     */
+    public static boolean update(File archive, Map<String, File> changes) {
+        return update(archive, changes, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * 增量更新压缩包
+     * 未变化的条目直接拷贝原有的压缩数据，只压缩新增或替换的条目（追加在末尾），
+     * 新压缩包写入临时文件后通过备份式重命名替换原文件
+     *
+     * @param archive 压缩文件，不存在时新建
+     * @param changes 条目名称 → 新内容文件，值为 null 表示删除该条目
+     * @param level   新条目的压缩级别 0-9，{@link Deflater#DEFAULT_COMPRESSION} 为默认级别
+     * @return 是否更新成功，失败时原压缩包保持不变
+     */
+    public static boolean update(File archive, Map<String, File> changes, int level) {
+        return update(archive, changes, level, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 增量更新压缩包（指定文件名编码）
+     * 与 {@link ZipFile#ZipFile(File, Charset)} 相同，未设置 UTF-8 标志的条目名称按 charset 解码后
+     * 与 changes 的键匹配，如 GBK 编码的旧压缩包传入 Charset.forName("GBK")；原条目拷贝时保留原始文件名字节
+     *
+     * @param archive 压缩文件，不存在时新建
+     * @param changes 条目名称 → 新内容文件，值为 null 表示删除该条目
+     * @param level   新条目的压缩级别 0-9，{@link Deflater#DEFAULT_COMPRESSION} 为默认级别
+     * @param charset 未设置 UTF-8 标志的条目名称的编码
+     * @return 是否更新成功，失败时原压缩包保持不变
+     */
+    public static boolean update(File archive, Map<String, File> changes, int level, Charset charset) {
+        File tempFile = new File(archive.getPath() + ".tmp");
+        RawZipWriter writer = null;
+        FileInputStream source = null;
+        boolean written = false;
+        try {
+            writer = new RawZipWriter(new BufferedOutputStream(new FileOutputStream(tempFile), 64 * 1024));
+            byte[] buffer = new byte[64 * 1024];
+            if (archive.exists()) {
+                source = new FileInputStream(archive);
+                FileChannel channel = source.getChannel();
+                InputStream raw = Channels.newInputStream(channel);
+                for (ZipCentralDirectory.Record record : ZipCentralDirectory.read(channel)) {
+                    String name = (record.flags & FLAG_UTF8) != 0 ? record.name : new String(record.rawName, charset);
+                    if (changes.containsKey(name)) continue;
+                    if ((record.flags & 0x0001) != 0) throw new IOException("Encrypted entry: " + record.name);
+                    channel.position(ZipCentralDirectory.dataOffset(channel, record));
+                    writer.writeRawEntry(record.rawName, record.flags, record.method, record.dosTime, record.crc,
+                            record.compressedSize, record.size, raw, buffer);
+                }
+            }
+            List<ParallelZipWriter.Source> sources = new ArrayList<>();
+            long totalBytes = 0;
+            for (Map.Entry<String, File> change : changes.entrySet()) {
+                File file = change.getValue();
+                if (file == null) continue;
+                if (!file.isFile()) throw new IOException("Not a file: " + file);
+                sources.add(new ParallelZipWriter.Source(file, change.getKey()));
+                totalBytes += file.length();
+            }
+            int threads = Runtime.getRuntime().availableProcessors();
+            new ParallelZipWriter(level, threads, null, null)
+                    .writeSources(writer, sources, archive.getAbsoluteFile().getParentFile(), 0, totalBytes);
+            writer.finish();
+            written = true;
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            Files.closeQuietly(writer);
+            Files.closeQuietly(source);
+        }
+        if (!written) {
+            tempFile.delete();
+            return false;
+        }
+        if (!archive.exists()) {
+            if (tempFile.renameTo(archive)) return true;
+            tempFile.delete();
+            return false;
+        }
+        // 备份式替换（兼容minSdk 21，任何失败可恢复）
+        File backupFile = new File(archive.getPath() + ".bak");
+        backupFile.delete();
+        if (!archive.renameTo(backupFile)) {
+            tempFile.delete();
+            return false;
+        }
+        if (!tempFile.renameTo(archive)) {
+            backupFile.renameTo(archive);
+            tempFile.delete();
+            return false;
+        }
+        backupFile.delete();
+        return true;
+    }
+
     private static void zip(File srcFile, ZipOutputStream out, String path) {
         if (srcFile.isDirectory()) {
             File[] files = srcFile.listFiles();
@@ -0,0 +1,195 @@
+package top.jessi.jhelper.file;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * Created by Jessi on 2026/10/19 17:30
+ * Email：17324719944@189.cn
+ * Describe：zip 中央目录解析
+ * 直接读取压缩包末尾的中央目录，得到每个条目的压缩方式、CRC、大小以及本地文件头偏移，
+ * 供内存映射读取与原始字节拷贝使用（{@link java.util.zip.ZipFile} 不公开这些偏移）。支持 Zip64。
+ * 所有偏移与长度均做越界检查，损坏的压缩包抛出 {@link ZipException}。
+ */
+final class ZipCentralDirectory {
+    private static final int END_SIG = 0x06054b50;
+    private static final int ZIP64_END_SIG = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int END_SIZE = 22;
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    /**
+     * 中央目录中的单个条目
+     */
+    static final class Record {
+        // 通用标志位：条目已加密
+        static final int FLAG_ENCRYPTED = 0x0001;
+
+        String name;
+        // 原始文件名字节，原样拷贝条目时使用，避免非 UTF-8 文件名被重新编码
+        byte[] rawName;
+        int flags;
+        int method;
+        long dosTime;
+        long crc;
+        long compressedSize;
+        long size;
+        long localHeaderOffset;
+        // 数据起始偏移，首次读取本地文件头后填充
+        volatile long dataOffset = -1;
+
+        boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        boolean isEncrypted() {
+            return (flags & FLAG_ENCRYPTED) != 0;
+        }
+    }
+
+    private ZipCentralDirectory() {
+        throw new UnsupportedOperationException("cannot be instantiated");
+    }
+
+    /**
+     * 读取全部条目
+     */
+    static List<Record> read(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        int tailSize = (int) Math.min(fileSize, END_SIZE + MAX_COMMENT);
+        ByteBuffer tail = readFully(channel, fileSize - tailSize, tailSize);
+        int endPos = -1;
+        for (int i = tailSize - END_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_SIG) {
+                endPos = i;
+                break;
+            }
+        }
+        if (endPos < 0) throw new ZipException("Not a zip file: end of central directory not found");
+        long count = tail.getShort(endPos + 10) & 0xFFFF;
+        long centralSize = tail.getInt(endPos + 12) & 0xFFFFFFFFL;
+        long centralOffset = tail.getInt(endPos + 16) & 0xFFFFFFFFL;
+
+        // Zip64：结束记录之前存在定位器
+        long endOffset = fileSize - tailSize + endPos;
+        if (endOffset >= 20) {
+            ByteBuffer locator = readFully(channel, endOffset - 20, 20);
+            if (locator.getInt(0) == ZIP64_LOCATOR_SIG) {
+                long end64Offset = locator.getLong(8);
+                if (end64Offset < 0 || end64Offset > endOffset - 56) throw new ZipException("Invalid zip64 locator");
+                ByteBuffer end64 = readFully(channel, end64Offset, 56);
+                if (end64.getInt(0) != ZIP64_END_SIG) throw new ZipException("Invalid zip64 end record");
+                count = end64.getLong(32);
+                centralSize = end64.getLong(40);
+                centralOffset = end64.getLong(48);
+            }
+        }
+        if (count < 0 || centralSize < 0 || centralOffset < 0 || centralOffset > endOffset - centralSize) {
+            throw new ZipException("Invalid central directory location");
+        }
+        if (centralSize > Integer.MAX_VALUE) throw new ZipException("Central directory too large");
+        // 每个条目至少占 46 字节
+        if (count > centralSize / 46) throw new ZipException("Invalid central directory entry count: " + count);
+
+        ByteBuffer central = readFully(channel, centralOffset, (int) centralSize);
+        List<Record> records = new ArrayList<>((int) Math.min(count, 1 << 16));
+        int pos = 0;
+        for (long i = 0; i < count; i++) {
+            if (pos > centralSize - 46 || central.getInt(pos) != CENTRAL_HEADER_SIG) {
+                throw new ZipException("Invalid central directory entry");
+            }
+            Record record = new Record();
+            record.flags = central.getShort(pos + 8) & 0xFFFF;
+            record.method = central.getShort(pos + 10) & 0xFFFF;
+            record.dosTime = central.getInt(pos + 12) & 0xFFFFFFFFL;
+            record.crc = central.getInt(pos + 16) & 0xFFFFFFFFL;
+            record.compressedSize = central.getInt(pos + 20) & 0xFFFFFFFFL;
+            record.size = central.getInt(pos + 24) & 0xFFFFFFFFL;
+            int nameLength = central.getShort(pos + 28) & 0xFFFF;
+            int extraLength = central.getShort(pos + 30) & 0xFFFF;
+            int commentLength = central.getShort(pos + 32) & 0xFFFF;
+            record.localHeaderOffset = central.getInt(pos + 42) & 0xFFFFFFFFL;
+            if (pos + 46L + nameLength + extraLength + commentLength > centralSize) {
+                throw new ZipException("Truncated central directory entry");
+            }
+            byte[] name = new byte[nameLength];
+            central.position(pos + 46);
+            central.get(name);
+            record.rawName = name;
+            // 未设置 UTF-8 标志的旧压缩包大多也是 UTF-8 或 ASCII 文件名
+            record.name = new String(name, StandardCharsets.UTF_8);
+            readZip64Extra(central, pos + 46 + nameLength, extraLength, record);
+            if (record.size < 0 || record.compressedSize < 0 || record.localHeaderOffset < 0
+                    || record.localHeaderOffset > centralOffset - 30) {
+                throw new ZipException("Invalid entry sizes or offset: " + record.name);
+            }
+            records.add(record);
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+        return records;
+    }
+
+    /**
+     * 获取条目数据的起始偏移（读取本地文件头，其 extra 长度可能与中央目录不同）
+     */
+    static long dataOffset(FileChannel channel, Record record) throws IOException {
+        long offset = record.dataOffset;
+        if (offset >= 0) return offset;
+        ByteBuffer local = readFully(channel, record.localHeaderOffset, 30);
+        if (local.getInt(0) != LOCAL_HEADER_SIG) throw new ZipException("Invalid local header: " + record.name);
+        int nameLength = local.getShort(26) & 0xFFFF;
+        int extraLength = local.getShort(28) & 0xFFFF;
+        offset = record.localHeaderOffset + 30 + nameLength + extraLength;
+        if (offset > channel.size() - record.compressedSize) {
+            throw new ZipException("Entry data out of bounds: " + record.name);
+        }
+        record.dataOffset = offset;
+        return offset;
+    }
+
+    private static void readZip64Extra(ByteBuffer central, int start, int length, Record record) {
+        int pos = start;
+        int end = start + length;
+        while (pos + 4 <= end) {
+            int id = central.getShort(pos) & 0xFFFF;
+            int size = central.getShort(pos + 2) & 0xFFFF;
+            if (id == ZIP64_EXTRA_ID) {
+                // 仅当对应字段为 0xFFFFFFFF 时才出现在 Zip64 extra 中，顺序固定
+                int field = pos + 4;
+                if (record.size == 0xFFFFFFFFL && field + 8 <= end) {
+                    record.size = central.getLong(field);
+                    field += 8;
+                }
+                if (record.compressedSize == 0xFFFFFFFFL && field + 8 <= end) {
+                    record.compressedSize = central.getLong(field);
+                    field += 8;
+                }
+                if (record.localHeaderOffset == 0xFFFFFFFFL && field + 8 <= end) {
+                    record.localHeaderOffset = central.getLong(field);
+                }
+                return;
+            }
+            pos += 4 + size;
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read == -1) throw new EOFException("Unexpected end of zip file");
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
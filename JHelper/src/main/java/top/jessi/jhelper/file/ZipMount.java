@@ -0,0 +1,328 @@
+package top.jessi.jhelper.file;
+
+import android.util.LruCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Created by Jessi on 2026/10/19 17:58
+ * Email：17324719944@189.cn
+ * Describe：zip 只读虚拟文件系统
+ * 挂载时只解析一次中央目录，之后按需读取条目，无需先解压到磁盘：
+ * STORED 条目直接内存映射压缩包对应区域，零拷贝读取；
+ * DEFLATED 条目边读边解压，常用条目的解压结果保存在 LRU 缓存中。
+ * 不支持加密条目，读取时抛出 {@link ZipException}。
+ *
+ * 使用示例：
+ * <pre>{@code
+ * ZipMount mount = ZipMount.open(new File(dir, "assets.zip"));
+ * List<String> files = mount.list("textures");
+ * try (InputStream in = mount.open("textures/sky.png")) { ... }
+ * ByteBuffer table = mount.map("tables/lookup.bin");   // 仅 STORED 条目
+ * mount.close();
+ * }</pre>
+ */
+public final class ZipMount implements Closeable {
+    // 默认解压缓存 8MB，超过缓存 1/4 的条目不缓存
+    private static final int DEFAULT_CACHE_BYTES = 8 * 1024 * 1024;
+
+    private final FileInputStream input;
+    private final FileChannel channel;
+    private final Map<String, ZipCentralDirectory.Record> records = new HashMap<>();
+    private final Map<String, Set<String>> children = new HashMap<>();
+    private final LruCache<String, byte[]> cache;
+    private final int cacheLimit;
+    // 压缩包不超过 2GB 时整体映射一次，各条目取切片
+    private final MappedByteBuffer mapped;
+    private volatile boolean closed;
+
+    private ZipMount(File zipFile, int cacheBytes) throws IOException {
+        input = new FileInputStream(zipFile);
+        try {
+            channel = input.getChannel();
+            for (ZipCentralDirectory.Record record : ZipCentralDirectory.read(channel)) {
+                String name = normalize(record.name);
+                if (record.isDirectory()) {
+                    if (!children.containsKey(name)) children.put(name, new LinkedHashSet<>());
+                } else {
+                    records.put(name, record);
+                }
+                if (!name.isEmpty()) addToTree(name);
+            }
+            long size = channel.size();
+            mapped = size <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+        } catch (IOException | RuntimeException e) {
+            input.close();
+            throw e;
+        }
+        cacheLimit = cacheBytes / 4;
+        cache = new LruCache<String, byte[]>(Math.max(1, cacheBytes)) {
+            @Override
+            protected int sizeOf(String key, byte[] value) {
+                return value.length;
+            }
+        };
+    }
+
+    /**
+     * 挂载压缩包（默认 8MB 解压缓存）
+     */
+    public static ZipMount open(File zipFile) throws IOException {
+        return new ZipMount(zipFile, DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * 挂载压缩包
+     *
+     * @param zipFile    压缩文件
+     * @param cacheBytes 解压缓存容量（字节）
+     */
+    public static ZipMount open(File zipFile, int cacheBytes) throws IOException {
+        return new ZipMount(zipFile, cacheBytes);
+    }
+
+    /* ========================= 目录查询 ========================= */
+
+    /**
+     * 判断文件或目录是否存在
+     */
+    public boolean exists(String path) {
+        String name = normalize(path);
+        return records.containsKey(name) || children.containsKey(name);
+    }
+
+    /**
+     * 判断路径是否为目录（包括压缩包中未显式记录的中间目录）
+     */
+    public boolean isDirectory(String path) {
+        return children.containsKey(normalize(path));
+    }
+
+    /**
+     * 列出目录下的直接子项名称，根目录传 ""
+     */
+    public List<String> list(String dir) {
+        Set<String> names = children.get(normalize(dir));
+        return names == null ? Collections.emptyList() : new ArrayList<>(names);
+    }
+
+    /**
+     * 获取文件的未压缩大小，不存在返回 -1
+     */
+    public long size(String path) {
+        ZipCentralDirectory.Record record = records.get(normalize(path));
+        return record == null ? -1 : record.size;
+    }
+
+    /**
+     * 条目是否以 STORED 方式存储（可通过 {@link #map(String)} 零拷贝读取）
+     */
+    public boolean isStored(String path) {
+        ZipCentralDirectory.Record record = records.get(normalize(path));
+        return record != null && record.method == ZipEntry.STORED;
+    }
+
+    /* ========================= 读取 ========================= */
+
+    /**
+     * 打开文件输入流
+     *
+     * @throws FileNotFoundException 条目不存在
+     */
+    public InputStream open(String path) throws IOException {
+        String name = normalize(path);
+        ZipCentralDirectory.Record record = require(name);
+        byte[] cached = cache.get(name);
+        if (cached != null) return new ByteArrayInputStream(cached);
+        ByteBuffer raw = rawData(record);
+        if (record.method == ZipEntry.STORED) return new ByteBufferInputStream(raw, false);
+        if (record.method != ZipEntry.DEFLATED) throw new IOException("Unsupported compression method: " + record.method);
+        // nowrap 模式下 zlib 需要在数据末尾多读一个填充字节
+        Inflater inflater = new Inflater(true);
+        return new InflaterInputStream(new ByteBufferInputStream(raw, true), inflater, 8192) {
+            private boolean released;
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (!released) {
+                    released = true;
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * 读取文件全部字节，DEFLATED 条目的结果会进入 LRU 缓存
+     * 返回的数组归调用方所有，修改它不会影响缓存
+     *
+     * @throws FileNotFoundException 条目不存在
+     */
+    public byte[] readBytes(String path) throws IOException {
+        String name = normalize(path);
+        ZipCentralDirectory.Record record = require(name);
+        byte[] cached = cache.get(name);
+        if (cached != null) return cached.clone();
+        if (record.size > Integer.MAX_VALUE) throw new IOException("Entry too large: " + name);
+        byte[] data = new byte[(int) record.size];
+        try (InputStream in = open(name)) {
+            int offset = 0;
+            while (offset < data.length) {
+                int count = in.read(data, offset, data.length - offset);
+                if (count == -1) throw new IOException("Unexpected end of entry: " + name);
+                offset += count;
+            }
+        }
+        if (record.method != ZipEntry.STORED && data.length <= cacheLimit) {
+            cache.put(name, data);
+            return data.clone();
+        }
+        return data;
+    }
+
+    /**
+     * 零拷贝映射 STORED 条目，返回只读缓冲区
+     *
+     * @throws IOException 条目不存在或不是 STORED 方式存储
+     */
+    public ByteBuffer map(String path) throws IOException {
+        ZipCentralDirectory.Record record = require(normalize(path));
+        if (record.method != ZipEntry.STORED) throw new IOException("Entry is compressed, cannot map: " + path);
+        return rawData(record);
+    }
+
+    /**
+     * 清除解压缓存
+     */
+    public void clearCache() {
+        cache.evictAll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        cache.evictAll();
+        input.close();
+    }
+
+    /* ========================= 内部实现 ========================= */
+
+    private ZipCentralDirectory.Record require(String name) throws IOException {
+        if (closed) throw new IOException("ZipMount is closed");
+        ZipCentralDirectory.Record record = records.get(name);
+        if (record == null) throw new FileNotFoundException(name);
+        return record;
+    }
+
+    /**
+     * 条目原始数据（未解压）的只读切片
+     */
+    private ByteBuffer rawData(ZipCentralDirectory.Record record) throws IOException {
+        if (record.isEncrypted()) throw new ZipException("Encrypted entry not supported: " + record.name);
+        long offset = ZipCentralDirectory.dataOffset(channel, record);
+        if (mapped != null) {
+            ByteBuffer slice = mapped.duplicate();
+            slice.position((int) offset);
+            slice.limit((int) (offset + record.compressedSize));
+            return slice.slice().asReadOnlyBuffer();
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, record.compressedSize).asReadOnlyBuffer();
+    }
+
+    private void addToTree(String name) {
+        String path = name;
+        while (!path.isEmpty()) {
+            int slash = path.lastIndexOf('/');
+            String parent = slash < 0 ? "" : path.substring(0, slash);
+            String child = path.substring(slash + 1);
+            Set<String> set = children.get(parent);
+            boolean known = set != null;
+            if (set == null) {
+                set = new LinkedHashSet<>();
+                children.put(parent, set);
+            }
+            set.add(child);
+            // 父目录已登记过则其祖先也已登记
+            if (known) break;
+            path = parent;
+        }
+    }
+
+    private static String normalize(String path) {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/') start++;
+        while (end > start && path.charAt(end - 1) == '/') end--;
+        return path.substring(start, end);
+    }
+
+    /**
+     * 基于 ByteBuffer 的输入流，padding 为 true 时在末尾额外返回一个 0 字节供 Inflater 使用
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        private boolean padding;
+
+        ByteBufferInputStream(ByteBuffer buffer, boolean padding) {
+            this.buffer = buffer;
+            this.padding = padding;
+        }
+
+        @Override
+        public int read() {
+            if (buffer.hasRemaining()) return buffer.get() & 0xFF;
+            if (padding) {
+                padding = false;
+                return 0;
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) {
+                if (!padding) return -1;
+                padding = false;
+                b[off] = 0;
+                return 1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.bumptech.glide.load.engine.Resource
 import com.bumptech.glide.load.resource.SimpleResource
 import com.caverock.androidsvg.SVG
 import com.caverock.androidsvg.SVGParseException
+import top.jessi.jhelper.file.MimeSniffer
 import java.io.ByteArrayOutputStream
 import java.io.IOException
 import java.io.InputStream
@@ -17,13 +18,19 @@ import java.io.InputStream
  *
  * 优化点：
  * 1. 通过检查文件头判断是否是 SVG，快速排除非 SVG 文件
- * 2. 只读取前 512 字节进行判断，减少开销
+ * 2. 只读取前 512 字节进行判断，复用线程内缓冲区且不转换字符串，减少开销
  * 3. 支持大尺寸 SVG 文件
  */
 class SvgDecoder : ResourceDecoder<InputStream, SVG> {
 
     companion object {
         private const val TAG = "SvgDecoder"
+        private const val HEADER_SIZE = 512
+
+        // 文件头缓冲区，每个解码线程复用一份
+        private val headerBuffer = object : ThreadLocal<ByteArray>() {
+            override fun initialValue() = ByteArray(HEADER_SIZE)
+        }
     }
 
     @Throws(IOException::class)
@@ -31,17 +38,15 @@ class SvgDecoder : ResourceDecoder<InputStream, SVG> {
         // 快速检查是否是 SVG 文件
         return try {
             // 只读取前 512 字节，减少开销
-            source.mark(512)
-            val buffer = ByteArray(512)
-            val bytesRead = source.read(buffer, 0, 512)
+            source.mark(HEADER_SIZE)
+            val buffer = headerBuffer.get()!!
+            val bytesRead = source.read(buffer, 0, HEADER_SIZE)
             source.reset()
 
             if (bytesRead <= 0) return false
 
-            // 转换为字符串并检查文件头
             // SVG 文件通常以 XML 声明或 <svg 开头
-            val content = String(buffer, 0, bytesRead, Charsets.UTF_8).trimStart()
-            content.startsWith("<?xml") || content.startsWith("<svg")
+            MimeSniffer.isSvgCandidate(buffer, 0, bytesRead)
         } catch (e: Exception) {
             false
         }